@@ -0,0 +1,45 @@
+package jobshop;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing of instance files, and reading of their binary copies. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceBenchmark {
+
+    @Param({"ft10", "la40", "swv20", "ta50", "ta80"})
+    public String instanceName;
+
+    private Path binary;
+
+    @Setup
+    public void setup() throws IOException {
+        binary = Files.createTempFile(instanceName, ".bin");
+        Instance.fromFile(Paths.get("instances/", instanceName)).writeBinary(binary, 0, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binary);
+    }
+
+    @Benchmark
+    public Instance fromFile() throws IOException {
+        return Instance.fromFile(Paths.get("instances/", instanceName));
+    }
+
+    @Benchmark
+    public Instance fromBinaryFile() throws IOException {
+        return Instance.fromBinaryFile(binary);
+    }
+}
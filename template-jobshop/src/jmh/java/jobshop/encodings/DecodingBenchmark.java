@@ -0,0 +1,78 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.solvers.GreedyESTLRPT;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/** Compares the decoding of a ResourceOrder with the previous, stream based, implementation. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodingBenchmark {
+
+    @Param({"ft10", "la40", "ta50", "ta71", "ta80"})
+    public String instanceName;
+
+    private ResourceOrder order;
+
+    @Setup
+    public void setup() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/", instanceName));
+        order = new ResourceOrder(new GreedyESTLRPT().solve(instance, Long.MAX_VALUE).schedule);
+    }
+
+    @Benchmark
+    public Schedule toSchedule() {
+        // swapping twice leaves the order unchanged but invalidates its cached schedule
+        order.swap(0, 0, 1);
+        order.swap(0, 0, 1);
+        return order.toSchedule();
+    }
+
+    @Benchmark
+    public Schedule legacyToSchedule() {
+        return legacyToSchedule(order);
+    }
+
+    /** Decoder of ResourceOrder before the introduction of the ready queue, kept as a baseline. */
+    static Schedule legacyToSchedule(ResourceOrder order) {
+        Instance instance = order.instance;
+        int [][] startTimes = new int [instance.numJobs][instance.numTasks];
+        int[] nextToScheduleByJob = new int[instance.numJobs];
+        int[] nextToScheduleByMachine = new int[instance.numMachines];
+        int[] releaseTimeOfMachine = new int[instance.numMachines];
+
+        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
+            Optional<Task> schedulable =
+                    IntStream.range(0, instance.numMachines)
+                            .filter(m -> nextToScheduleByMachine[m] < instance.numJobs)
+                            .mapToObj(m -> order.getTask(m, nextToScheduleByMachine[m]))
+                            .filter(task -> task.task == nextToScheduleByJob[task.job])
+                            .findFirst();
+
+            if(schedulable.isPresent()) {
+                Task t = schedulable.get();
+                int machine = instance.machine(t.job, t.task);
+                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
+                est = Math.max(est, releaseTimeOfMachine[instance.machine(t)]);
+                startTimes[t.job][t.task] = est;
+                nextToScheduleByJob[t.job]++;
+                nextToScheduleByMachine[machine]++;
+                releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
+            } else {
+                return null;
+            }
+        }
+        return new Schedule(instance, startTimes);
+    }
+}
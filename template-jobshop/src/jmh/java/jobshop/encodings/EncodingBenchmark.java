@@ -0,0 +1,78 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.solvers.GreedyESTLRPT;
+import jobshop.solvers.JobNumbersEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Hot paths of the encodings : decoding, encoding a schedule, validation and critical path extraction. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"ft10", "la40", "swv20", "ta50", "ta80"})
+    public String instanceName;
+
+    private Schedule schedule;
+    private JobNumbers jobNumbers;
+    private ResourceOrder order;
+    private JobNumbersEvaluator evaluator;
+    private int position = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/", instanceName));
+        schedule = new GreedyESTLRPT().solve(instance, Long.MAX_VALUE).schedule;
+        jobNumbers = new JobNumbers(schedule);
+        order = new ResourceOrder(schedule);
+        evaluator = new JobNumbersEvaluator(instance);
+        evaluator.load(jobNumbers);
+    }
+
+    @Benchmark
+    public Schedule jobNumbersToSchedule() {
+        return jobNumbers.toSchedule();
+    }
+
+    @Benchmark
+    public int jobNumbersSwap() {
+        // swap of two close positions, as in SimulatedAnnealingSolver, spread over the whole sequence
+        position = (position + 7) % (jobNumbers.jobs.length - 1);
+        int makespan = evaluator.swap(position, position + 1);
+        evaluator.reject();
+        return makespan;
+    }
+
+    @Benchmark
+    public Schedule resourceOrderToSchedule() {
+        // swapping twice leaves the order unchanged but invalidates its cached schedule
+        order.swap(0, 0, 1);
+        order.swap(0, 0, 1);
+        return order.toSchedule();
+    }
+
+    @Benchmark
+    public ResourceOrder resourceOrderFromSchedule() {
+        return new ResourceOrder(schedule);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return schedule.isValid();
+    }
+
+    @Benchmark
+    public List<Task> criticalPath() {
+        return schedule.criticalPath();
+    }
+}
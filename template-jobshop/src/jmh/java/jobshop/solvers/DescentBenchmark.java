@@ -0,0 +1,48 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.SolverStats;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Swap;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One iteration of DescentSolver from the GreedyESTLRPT solution : heads and tails computation, critical blocks
+ * extraction and evaluation of the N5 neighborhood. The move itself is not applied so that each iteration starts
+ * from the same solution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DescentBenchmark {
+
+    @Param({"ft10", "la40", "swv20", "ta50", "ta80"})
+    public String instanceName;
+
+    private ResourceOrder order;
+    private SwapEvaluator evaluator;
+    private final SolverStats stats = new SolverStats();
+
+    @Setup
+    public void setup() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/", instanceName));
+        order = new ResourceOrder(new GreedyESTLRPT().solve(instance, Long.MAX_VALUE).schedule);
+        evaluator = new SwapEvaluator(instance);
+    }
+
+    @Benchmark
+    public Swap iteration() {
+        // invalidate the cached schedule, as after an accepted move
+        order.swap(0, 0, 1);
+        order.swap(0, 0, 1);
+        evaluator.load(order);
+        return DescentSolver.bestImprovingSwap(order, evaluator, stats);
+    }
+}
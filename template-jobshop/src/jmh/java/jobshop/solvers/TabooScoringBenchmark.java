@@ -0,0 +1,65 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.Block;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Swap;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring of the N5 candidate list of the GreedyESTLRPT solution by TabooSolver, on the calling thread (1 worker) or
+ * split between the workers of a pool whatever its size. Compared with the sequential scoring, it gives the size of
+ * the candidate lists above which the split pays off (TabooSolver.MIN_CHUNK_WORK).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabooScoringBenchmark {
+
+    @Param({"ft10", "la40", "swv20", "ta50", "ta80"})
+    public String instanceName;
+
+    @Param({"1", "2", "4"})
+    public int workers;
+
+    private SwapEvaluator evaluator;
+    private List<Swap> candidates;
+    private SwapEvaluator.Scratch[] scratches;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/", instanceName));
+        ResourceOrder order = new ResourceOrder(new GreedyESTLRPT().solve(instance, Long.MAX_VALUE).schedule);
+        evaluator = new SwapEvaluator(instance);
+        evaluator.load(order);
+        candidates = new ArrayList<>();
+        for(Block block : order.criticalBlocks())
+            candidates.addAll(block.neighbors());
+        scratches = new SwapEvaluator.Scratch[workers];
+        for(int w = 0 ; w < workers ; w++)
+            scratches[w] = new SwapEvaluator.Scratch(instance);
+        pool = workers > 1 ? new ForkJoinPool(workers) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if(pool != null)
+            pool.shutdown();
+    }
+
+    @Benchmark
+    public int[] score() {
+        return TabooSolver.score(evaluator, candidates, scratches, pool, workers);
+    }
+}
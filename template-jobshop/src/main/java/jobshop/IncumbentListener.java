@@ -0,0 +1,62 @@
+package jobshop;
+
+/**
+ * Receives the successive best solutions (incumbents) of an anytime solver while it runs, and can ask it to stop.
+ *
+ * Listeners are called on the thread of the solver, so they must return quickly : expensive work should be handed
+ * over to another thread. The published schedules are never modified afterwards.
+ */
+@FunctionalInterface
+public interface IncumbentListener {
+
+    /** Listener ignoring all incumbents, used by Solver.solve(Instance, long). */
+    IncumbentListener NONE = (schedule, makespan, timestamp) -> {};
+
+    /**
+     * Called each time the solver finds a solution better than all the previous ones.
+     *
+     * @param timestamp time at which the solution was found, as given by System.currentTimeMillis()
+     */
+    void onIncumbent(Schedule schedule, int makespan, long timestamp);
+
+    /**
+     * Polled by the solver between two iterations : when true, the solver returns its best solution as soon as
+     * possible, with the Cancelled exit cause.
+     */
+    default boolean stopRequested() {
+        return false;
+    }
+
+    /**
+     * Polled by the solvers that support it along with stopRequested(), with the deadline they were given : returns
+     * the deadline to use from now on, which may be later when the caller gives more time to a solver that keeps
+     * improving. By default, the deadline never changes.
+     */
+    default long deadline(long deadline) {
+        return deadline;
+    }
+
+    /** Listener forwarding incumbents to `delegate` and requesting the solver to stop once `target` is reached. */
+    static IncumbentListener untilMakespan(int target, IncumbentListener delegate) {
+        return new IncumbentListener() {
+            private volatile boolean reached = false;
+
+            @Override
+            public void onIncumbent(Schedule schedule, int makespan, long timestamp) {
+                if(makespan <= target)
+                    reached = true;
+                delegate.onIncumbent(schedule, makespan, timestamp);
+            }
+
+            @Override
+            public boolean stopRequested() {
+                return reached || delegate.stopRequested();
+            }
+
+            @Override
+            public long deadline(long deadline) {
+                return delegate.deadline(deadline);
+            }
+        };
+    }
+}
@@ -2,12 +2,16 @@ package jobshop;
 
 import jobshop.encodings.Task;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class Instance {
 
@@ -20,17 +24,54 @@ public class Instance {
     /** Number of machines, assumed to be same as number of tasks. */
     public final int numMachines;
 
-    final int[][] durations;
-    final int[][] machines;
+    /** Total number of tasks in the instance. Each of them is identified by an operation id in [0, numOps). */
+    public final int numOps;
 
+    // Durations and machines of all tasks, stored contiguously job after job :
+    // the task (j,t) is at index j * numTasks + t
+    final int[] durations;
+    final int[] machines;
+
+    /** taskOfMachine[j * numMachines + m] is the index of the task of job j that is executed on machine m */
+    private final int[] taskOfMachine;
+
+    /** remainingWork[j * (numTasks+1) + t] is the total duration of the tasks of job j starting from task t */
+    private final int[] remainingWork;
+
+    /** Operation id of the task (job, task) : job * numTasks + task */
+    public int op(int job, int task) {
+        return job * numTasks + task;
+    }
+    public int op(Task t) {
+        return op(t.job, t.task);
+    }
+    /** Job of the given operation id */
+    public int jobOf(int op) {
+        return op / numTasks;
+    }
+    /** Index of the given operation id inside its job */
+    public int taskOf(int op) {
+        return op % numTasks;
+    }
+    /** Task corresponding to the given operation id */
+    public Task task(int op) {
+        return new Task(jobOf(op), taskOf(op));
+    }
+
+    public int duration(int op) {
+        return durations[op];
+    }
     public int duration(int job, int task) {
-        return durations[job][task];
+        return durations[job * numTasks + task];
     }
     public int duration(Task t) {
         return duration(t.job, t.task);
     }
+    public int machine(int op) {
+        return machines[op];
+    }
     public int machine(int job, int task) {
-        return machines[job][task];
+        return machines[job * numTasks + task];
     }
     public int machine(Task t) {
         return this.machine(t.job, t.task);
@@ -38,42 +79,225 @@ public class Instance {
 
     /** among the tasks of the given job, returns the task index that uses the given machine. */
     public int task_with_machine(int job, int wanted_machine) {
-        for(int task = 0 ; task < numTasks ; task++) {
-            if(machine(job, task) == wanted_machine)
-                return task;
-        }
-        throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        int task = taskOfMachine[job * numMachines + wanted_machine];
+        if(task == -1)
+            throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        return task;
+    }
+
+    /** Sum of the durations of the given task and of all tasks that follow it in its job. */
+    public int remainingDuration(int job, int task) {
+        return remainingWork[job * (numTasks + 1) + task];
+    }
+    public int remainingDuration(Task t) {
+        return remainingDuration(t.job, t.task);
     }
 
     Instance(int numJobs, int numTasks) {
         this.numJobs = numJobs;
         this.numTasks = numTasks;
         this.numMachines = numTasks;
+        this.numOps = numJobs * numTasks;
 
-        durations = new int[numJobs][numTasks];
-        machines = new int[numJobs][numTasks];
+        durations = new int[numJobs * numTasks];
+        machines = new int[numJobs * numTasks];
+        taskOfMachine = new int[numJobs * numMachines];
+        remainingWork = new int[numJobs * (numTasks + 1)];
     }
 
-    /** Parses a instance from a file. */
+    /** Computes the lookup tables derived from durations and machines, once they have all been set. */
+    private void buildIndexes() {
+        Arrays.fill(taskOfMachine, -1);
+        for(int job = 0 ; job < numJobs ; job++) {
+            for(int task = 0 ; task < numTasks ; task++) {
+                // keep the first task if several of them target the same machine
+                if(taskOfMachine[job * numMachines + machine(job, task)] == -1)
+                    taskOfMachine[job * numMachines + machine(job, task)] = task;
+            }
+            // remainingWork[.. + numTasks] is 0
+            for(int task = numTasks - 1 ; task >= 0 ; task--) {
+                remainingWork[job * (numTasks + 1) + task] = remainingWork[job * (numTasks + 1) + task + 1] + duration(job, task);
+            }
+        }
+    }
+
+    /**
+     * Parses an instance from a text file : the number of jobs and of tasks per job, then for each job the machine
+     * and duration of each of its tasks. Everything from a `#` to the end of its line is a comment.
+     * The file is read through a small buffer and the integers are parsed directly into the instance.
+     */
     public static Instance fromFile(Path path) throws IOException {
-        Iterator<String> lines = Files.readAllLines(path).stream()
-                .filter(l -> !l.startsWith("#"))
-                .collect(Collectors.toList())
-                .iterator();
-
-        Scanner header = new Scanner(lines.next());
-        int num_jobs = header.nextInt();
-        int num_tasks = header.nextInt();
-        Instance pb = new Instance(num_jobs, num_tasks);
-
-        for(int job = 0 ; job<num_jobs ; job++) {
-            Scanner line = new Scanner(lines.next());
-            for(int task = 0 ; task < num_tasks ; task++) {
-                pb.machines[job][task] = line.nextInt();
-                pb.durations[job][task] = line.nextInt();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Tokenizer tokens = new Tokenizer(channel, path);
+            int numJobs = tokens.nextInt();
+            int numTasks = tokens.nextInt();
+            if(numJobs == 0 || numTasks == 0)
+                throw new IOException("Empty instance in " + path);
+            Instance pb = new Instance(numJobs, numTasks);
+            for(int op = 0 ; op < pb.numOps ; op++) {
+                pb.machines[op] = tokens.nextInt();
+                pb.durations[op] = tokens.nextInt();
+                if(pb.machines[op] >= pb.numMachines)
+                    throw new IOException("Invalid machine " + pb.machines[op] + " in " + path);
             }
+            pb.buildIndexes();
+            return pb;
         }
+    }
 
+    /** Reads the non-negative integers of an instance file, skipping blanks and comments. */
+    private static final class Tokenizer {
+        private final ReadableByteChannel channel;
+        private final Path path;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private final byte[] bytes = buffer.array();
+        private int position = 0;
+        private int limit = 0;
+
+        Tokenizer(ReadableByteChannel channel, Path path) {
+            this.channel = channel;
+            this.path = path;
+        }
+
+        /** Next byte of the file, -1 at the end of the file. */
+        private int read() throws IOException {
+            if(position == limit) {
+                buffer.clear();
+                int read;
+                do {
+                    read = channel.read(buffer);
+                } while(read == 0);
+                if(read < 0)
+                    return -1;
+                position = 0;
+                limit = read;
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int nextInt() throws IOException {
+            int c = read();
+            while(true) {
+                if(c == '#') {
+                    while(c != '\n' && c != -1)
+                        c = read();
+                } else if(c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    c = read();
+                } else {
+                    break;
+                }
+            }
+            if(c == -1)
+                throw new EOFException("Unexpected end of instance file " + path);
+            if(c < '0' || c > '9')
+                throw new IOException("Unexpected character '" + (char) c + "' in " + path);
+            int value = 0;
+            while(c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if(value < 0)
+                    throw new IOException("Integer overflow in " + path);
+                c = read();
+            }
+            if(c == '#')
+                position--; // start of a comment, read again by the next call
+            else if(c != -1 && c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                throw new IOException("Unexpected character '" + (char) c + "' in " + path);
+            return value;
+        }
+    }
+
+    /** First int of a binary instance file ("JSPI"), followed by the format version. */
+    private static final int BINARY_MAGIC = 0x4A535049;
+    private static final int BINARY_VERSION = 1;
+    /** magic, version, size and modification time of the source file, number of jobs and tasks */
+    private static final int BINARY_HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4;
+
+    /**
+     * Writes the instance in the compact binary format read by fromBinaryFile : a header followed by the machines
+     * and durations of all tasks as big-endian ints, by operation id.
+     * The size and modification time of the text file the instance was read from are recorded in the header, so that
+     * load can tell whether the binary file is stale (both are 0 if there is no such file).
+     */
+    public void writeBinary(Path path, long sourceSize, long sourceModified) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BINARY_HEADER_BYTES + 8 * numOps);
+        buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION)
+                .putLong(sourceSize).putLong(sourceModified)
+                .putInt(numJobs).putInt(numTasks);
+        buffer.asIntBuffer().put(machines).put(durations);
+        buffer.rewind();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /** Reads an instance written by writeBinary. */
+    public static Instance fromBinaryFile(Path path) throws IOException {
+        return readBinary(path, -1, -1);
+    }
+
+    /**
+     * Reads a binary instance file, checking that it was created from a source file of the given size and
+     * modification time if they are not -1.
+     */
+    private static Instance readBinary(Path path, long sourceSize, long sourceModified) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < BINARY_HEADER_BYTES || size > Integer.MAX_VALUE)
+                throw new IOException("Invalid binary instance file " + path);
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer) < 0)
+                    throw new EOFException("Unexpected end of binary instance file " + path);
+            }
+            buffer.flip();
+            if(buffer.getInt() != BINARY_MAGIC || buffer.getInt() != BINARY_VERSION)
+                throw new IOException("Not a binary instance file (or wrong version): " + path);
+            long recordedSize = buffer.getLong();
+            long recordedModified = buffer.getLong();
+            if((sourceSize != -1 && recordedSize != sourceSize) || (sourceModified != -1 && recordedModified != sourceModified))
+                throw new IOException("Stale binary instance file " + path);
+            int numJobs = buffer.getInt();
+            int numTasks = buffer.getInt();
+            if(numJobs <= 0 || numTasks <= 0 || size != BINARY_HEADER_BYTES + 8L * numJobs * numTasks)
+                throw new IOException("Invalid binary instance file " + path);
+            Instance pb = new Instance(numJobs, numTasks);
+            buffer.asIntBuffer().get(pb.machines).get(pb.durations);
+            pb.buildIndexes();
+            return pb;
+        }
+    }
+
+    /**
+     * Reads an instance from a text file through a cache directory of binary files : the instance is read from
+     * `cacheDirectory/<file name>.bin` if this file was created from the current version of the text file, and the
+     * cache file is (re)created otherwise. Without cache directory (null), this is fromFile.
+     * Instances are identified by file name only, so instances with the same name must not share a cache directory.
+     */
+    public static Instance load(Path path, Path cacheDirectory) throws IOException {
+        if(cacheDirectory == null)
+            return fromFile(path);
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        Path cached = cacheDirectory.resolve(path.getFileName() + ".bin");
+        if(Files.exists(cached)) {
+            try {
+                return readBinary(cached, size, modified);
+            } catch (IOException e) {
+                // stale or damaged cache file : it is rebuilt from the text file
+            }
+        }
+        Instance pb = fromFile(path);
+        Files.createDirectories(cacheDirectory);
+        // written next to its final location, then moved, so that a partially written file is never read
+        Path tmp = Files.createTempFile(cacheDirectory, path.getFileName().toString(), ".tmp");
+        try {
+            pb.writeBinary(tmp, size, modified);
+            Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
         return pb;
     }
 }
@@ -0,0 +1,137 @@
+package jobshop;
+
+import java.util.Arrays;
+
+/**
+ * Lower bounds of the makespan of an instance. A solution whose makespan reaches one of them is optimal.
+ *
+ *  - job bound : duration of the longest job
+ *  - machine bound : for each machine, total duration of its tasks, plus the smallest head (total duration of the
+ *    preceding tasks of the job) and the smallest tail (total duration of the following tasks) of its tasks
+ *  - Jackson bound : for each machine, makespan of the preemptive one-machine problem with heads and tails, which is
+ *    solved exactly by Jackson's preemptive schedule (at each time, the available task with the largest tail runs).
+ *
+ * The Jackson bound dominates the two others, which are kept because they are cheaper and give a hint of where the
+ * difficulty of the instance lies.
+ */
+public final class LowerBound {
+
+    private LowerBound() {}
+
+    /** Best of the lower bounds of the instance. */
+    public static int of(Instance instance) {
+        return Math.max(jobBound(instance), jacksonBound(instance));
+    }
+
+    /** Duration of the longest job. */
+    public static int jobBound(Instance instance) {
+        int bound = 0;
+        for(int job = 0 ; job < instance.numJobs ; job++)
+            bound = Math.max(bound, instance.remainingDuration(job, 0));
+        return bound;
+    }
+
+    /** Largest total duration of the tasks of a machine, with the smallest head and tail of these tasks. */
+    public static int machineBound(Instance instance) {
+        int[] load = new int[instance.numMachines];
+        int[] minHead = new int[instance.numMachines];
+        int[] minTail = new int[instance.numMachines];
+        Arrays.fill(minHead, Integer.MAX_VALUE);
+        Arrays.fill(minTail, Integer.MAX_VALUE);
+        for(int op = 0 ; op < instance.numOps ; op++) {
+            int m = instance.machine(op);
+            load[m] += instance.duration(op);
+            minHead[m] = Math.min(minHead[m], head(instance, op));
+            minTail[m] = Math.min(minTail[m], tail(instance, op));
+        }
+        int bound = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            if(load[m] > 0)
+                bound = Math.max(bound, minHead[m] + load[m] + minTail[m]);
+        }
+        return bound;
+    }
+
+    /** Largest makespan of the preemptive one-machine problems with heads and tails. */
+    public static int jacksonBound(Instance instance) {
+        int[] heads = new int[instance.numJobs];
+        int[] durations = new int[instance.numJobs];
+        int[] tails = new int[instance.numJobs];
+        int bound = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int n = 0;
+            for(int op = 0 ; op < instance.numOps ; op++) {
+                if(instance.machine(op) != m)
+                    continue;
+                if(n == heads.length) {
+                    // a job with several tasks on this machine
+                    heads = Arrays.copyOf(heads, 2 * n);
+                    durations = Arrays.copyOf(durations, 2 * n);
+                    tails = Arrays.copyOf(tails, 2 * n);
+                }
+                heads[n] = head(instance, op);
+                durations[n] = instance.duration(op);
+                tails[n] = tail(instance, op);
+                n++;
+            }
+            bound = Math.max(bound, preemptiveOneMachine(heads, durations, tails, n));
+        }
+        return bound;
+    }
+
+    /** Total duration of the tasks preceding op in its job. */
+    private static int head(Instance instance, int op) {
+        int job = instance.jobOf(op);
+        return instance.remainingDuration(job, 0) - instance.remainingDuration(job, instance.taskOf(op));
+    }
+
+    /** Total duration of the tasks following op in its job. */
+    private static int tail(Instance instance, int op) {
+        return instance.remainingDuration(instance.jobOf(op), instance.taskOf(op) + 1);
+    }
+
+    /**
+     * Makespan (largest completion time plus tail) of Jackson's preemptive schedule of the first n tasks, which is the
+     * optimum of the preemptive one-machine problem with heads and tails. The arrays are left unchanged.
+     */
+    public static int preemptiveOneMachine(int[] heads, int[] durations, int[] tails, int n) {
+        int[] remaining = Arrays.copyOf(durations, n);
+        int done = 0;
+        int time = 0;
+        int makespan = 0;
+        for(int i = 0 ; i < n ; i++) {
+            if(remaining[i] == 0) {
+                done++;
+                makespan = Math.max(makespan, heads[i] + tails[i]);
+            }
+        }
+        while(done < n) {
+            // available task with the largest tail, and next release of a task
+            int chosen = -1;
+            int nextRelease = Integer.MAX_VALUE;
+            for(int i = 0 ; i < n ; i++) {
+                if(remaining[i] == 0)
+                    continue;
+                if(heads[i] <= time) {
+                    if(chosen == -1 || tails[i] > tails[chosen])
+                        chosen = i;
+                } else {
+                    nextRelease = Math.min(nextRelease, heads[i]);
+                }
+            }
+            if(chosen == -1) {
+                time = nextRelease;
+                continue;
+            }
+            // runs until it completes or a task is released
+            int run = (int) Math.min(remaining[chosen], (long) nextRelease - time);
+            time += run;
+            remaining[chosen] -= run;
+            if(remaining[chosen] == 0) {
+                done++;
+                makespan = Math.max(makespan, time + tails[chosen]);
+            }
+        }
+        return makespan;
+    }
+}
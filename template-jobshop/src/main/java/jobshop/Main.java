@@ -1,16 +1,26 @@
 package jobshop;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 import jobshop.solvers.*;
 import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -18,7 +28,8 @@ import net.sourceforge.argparse4j.inf.Namespace;
 
 public class Main {
 
-    /** All solvers available in this program */
+    /** All solvers available in this program.
+     *  They are shared between the threads of the --parallel mode and must thus be stateless or thread-safe. */
     private static HashMap<String, Solver> solvers;
     static {
         solvers = new HashMap<>();
@@ -30,7 +41,22 @@ public class Main {
         solvers.put("lrpt", new GreedyLRPT());
         solvers.put("est_lrpt", new GreedyESTLRPT());
         solvers.put("descent", new DescentSolver());
+        solvers.put("multi_descent", new MultiStartDescentSolver());
         solvers.put("taboo", new TabooSolver());
+        solvers.put("tsab", new TSABSolver());
+        solvers.put("sb", new ShiftingBottleneckSolver());
+        solvers.put("sa", new SimulatedAnnealingSolver());
+        solvers.put("bnb", new BranchAndBoundSolver());
+    }
+
+    /** Single-worker versions of the solvers that use several threads, used in the --parallel mode so that each run
+     *  stays on the thread measuring its CPU time and the processors are not oversubscribed. */
+    private static HashMap<String, Solver> singleWorkerSolvers;
+    static {
+        singleWorkerSolvers = new HashMap<>();
+        singleWorkerSolvers.put("multi_descent", new MultiStartDescentSolver(1));
+        singleWorkerSolvers.put("sa", new SimulatedAnnealingSolver(1));
+        singleWorkerSolvers.put("bnb", new BranchAndBoundSolver(1));
 
 
     }
@@ -45,15 +71,47 @@ public class Main {
                 .setDefault(1L)
                 .type(Long.class)
                 .help("Solver timeout in seconds for each instance");
+        parser.addArgument("--budget")
+                .type(Long.class)
+                .help("Total time budget in seconds, shared by all runs instead of a fixed timeout. " +
+                        "Instances are solved from the smallest to the largest and the time left by runs that " +
+                        "finish early or stagnate goes to the following ones, or to the runs still improving at their deadline");
         parser.addArgument("--solver")
                 .nargs("+")
-                .required(true)
                 .help("Solver(s) to use (space separated if more than one)");
 
         parser.addArgument("--instance")
                 .nargs("+")
-                .required(true)
                 .help("Instance(s) to solve (space separated if more than one)");
+        parser.addArgument("--cache")
+                .help("Directory of binary copies of the instance files, (re)built when missing or stale, " +
+                        "to load instances faster");
+        parser.addArgument("--parallel")
+                .setDefault(1)
+                .type(Integer.class)
+                .help("Number of (instance, solver) pairs solved at the same time. " +
+                        "When greater than 1, the runtime is the CPU time of the solving thread");
+        parser.addArgument("--runs")
+                .setDefault(1)
+                .type(Integer.class)
+                .help("Number of runs of each solver on each instance");
+        parser.addArgument("--format")
+                .setDefault("table")
+                .choices("table", "csv", "jsonl")
+                .help("Output format: a table, or one record per (instance, solver, run) in CSV or JSON Lines");
+        parser.addArgument("--output")
+                .help("File to write the results to (default: standard output)");
+        parser.addArgument("--compare")
+                .nargs(2)
+                .metavar("BASE", "NEW")
+                .help("Compares two result files (CSV or JSON Lines) and reports regressions instead of solving");
+        parser.addArgument("--threshold")
+                .setDefault(10.0)
+                .type(Double.class)
+                .help("Relative CPU time increase (in percents) reported as a regression by --compare");
+        parser.addArgument("--stats")
+                .action(Arguments.storeTrue())
+                .help("Prints the statistics of each run (evaluations, moves, improvement trace...) after the table");
 
         Namespace ns = null;
         try {
@@ -63,11 +121,29 @@ public class Main {
             System.exit(1);
         }
 
-        PrintStream output = System.out;
+        try {
+            List<String> compared = ns.getList("compare");
+            if(compared != null) {
+                int regressions = ResultComparison.compare(Paths.get(compared.get(0)), Paths.get(compared.get(1)),
+                        ns.getDouble("threshold"), System.out);
+                System.exit(regressions > 0 ? 1 : 0);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        }
 
         long solveTimeMs = ns.getLong("timeout") * 1000;
 
         List<String> solversToTest = ns.getList("solver");
+        List<String> instancePrefixes = ns.getList("instance");
+        if(solversToTest == null || instancePrefixes == null) {
+            System.err.println("ERROR: --solver and --instance are required (unless --compare is used).");
+            System.exit(1);
+        }
         for(String solverName : solversToTest) {
             if(!solvers.containsKey(solverName)) {
                 System.err.println("ERROR: Solver \"" + solverName + "\" is not avalaible.");
@@ -76,7 +152,6 @@ public class Main {
                 System.exit(1);
             }
         }
-        List<String> instancePrefixes = ns.getList("instance");
         List<String> instances = new ArrayList<>();
         for(String instancePrefix : instancePrefixes) {
             List<String> matches = BestKnownResult.instancesMatching(instancePrefix);
@@ -88,61 +163,180 @@ public class Main {
             instances.addAll(matches);
         }
 
+        int parallel = ns.getInt("parallel");
+        if(parallel < 1) {
+            System.err.println("ERROR: --parallel must be at least 1.");
+            System.exit(1);
+        }
+        int numRuns = ns.getInt("runs");
+        if(numRuns < 1) {
+            System.err.println("ERROR: --runs must be at least 1.");
+            System.exit(1);
+        }
+        ResultRecord.Format format = ResultRecord.Format.valueOf(ns.getString("format"));
+        Long budgetSeconds = ns.getLong("budget");
+        if(budgetSeconds != null && budgetSeconds <= 0) {
+            System.err.println("ERROR: --budget must be positive.");
+            System.exit(1);
+        }
+
+        boolean printStats = ns.getBoolean("stats");
+        // statistics lines of the table format, printed after the averages
+        List<String> statsLines = new ArrayList<>();
+
         float[] runtimes = new float[solversToTest.size()];
         float[] distances = new float[solversToTest.size()];
+        float[] lowerBoundDistances = new float[solversToTest.size()];
 
         try {
-            output.print(  "                         ");
-            for(String s : solversToTest)
-                output.printf("%-30s", s);
-            output.println();
-            output.print("instance size  best      ");
-            for(String s : solversToTest) {
-                output.print("runtime makespan ecart        ");
+            // records are flushed one by one, so that an interrupted sweep still gives a usable file
+            PrintStream output = ns.getString("output") == null
+                    ? System.out
+                    : new PrintStream(new FileOutputStream(ns.getString("output")), true);
+
+            if(format == ResultRecord.Format.table) {
+                output.print(  "                           ");
+                for(String s : solversToTest)
+                    output.printf("%-30s", s);
+                output.println();
+                output.print("instance size  best     lb  ");
+                for(String s : solversToTest) {
+                    output.print("runtime makespan ecart lbgap  ");
+                }
+                output.println();
+            } else if(format == ResultRecord.Format.csv) {
+                output.println(ResultRecord.CSV_HEADER);
             }
-            output.println();
-
 
+            Path cache = ns.getString("cache") == null ? null : Paths.get(ns.getString("cache"));
+            List<Instance> loaded = new ArrayList<>();
             for(String instanceName : instances) {
-                int bestKnown = BestKnownResult.of(instanceName);
+                Path path = Paths.get("instances/", instanceName);
+                loaded.add(Instance.load(path, cache));
+            }
 
+            TimeBudget budget = null;
+            if(budgetSeconds != null) {
+                // smallest instances first : the time they do not use is given to the largest ones
+                List<Integer> bySize = new ArrayList<>();
+                for(int i = 0 ; i < instances.size() ; i++)
+                    bySize.add(i);
+                bySize.sort(Comparator.comparingInt(i -> loaded.get(i).numOps));
+                List<String> sortedNames = new ArrayList<>();
+                List<Instance> sortedInstances = new ArrayList<>();
+                long totalOps = 0;
+                for(int i : bySize) {
+                    sortedNames.add(instances.get(i));
+                    sortedInstances.add(loaded.get(i));
+                    totalOps += (long) loaded.get(i).numOps * solversToTest.size() * numRuns;
+                }
+                instances = sortedNames;
+                loaded.clear();
+                loaded.addAll(sortedInstances);
+                budget = new TimeBudget(budgetSeconds * 1000, parallel, totalOps);
+            }
+            final TimeBudget sharedBudget = budget;
+
+            // in parallel mode, all runs are submitted at once and their results are printed in order.
+            // The run r of solver s on instance i is at index (i * numSolvers + s) * numRuns + r.
+            ExecutorService executor = null;
+            List<Future<Run>> submitted = new ArrayList<>();
+            if(parallel > 1) {
+                executor = Executors.newFixedThreadPool(parallel);
+                for(Instance instance : loaded) {
+                    for(String solverName : solversToTest) {
+                        Solver solver = singleWorkerSolvers.getOrDefault(solverName, solvers.get(solverName));
+                        for(int r = 0 ; r < numRuns ; r++)
+                            submitted.add(executor.submit(() -> run(solver, instance, solveTimeMs, sharedBudget, true)));
+                    }
+                }
+            }
 
-                Path path = Paths.get("instances/", instanceName);
-                Instance instance = Instance.fromFile(path);
+            for(int instanceId = 0 ; instanceId < instances.size() ; instanceId++) {
+                String instanceName = instances.get(instanceId);
+                int bestKnown = BestKnownResult.of(instanceName);
+                int lowerBound = LowerBound.of(loaded.get(instanceId));
+                Instance instance = loaded.get(instanceId);
 
-                output.printf("%-8s %-5s %4d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown);
+                if(format == ResultRecord.Format.table)
+                    output.printf("%-8s %-5s %4d %5d  ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown, lowerBound);
 
                 for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
                     String solverName = solversToTest.get(solverId);
                     Solver solver = solvers.get(solverName);
-                    long start = System.currentTimeMillis();
-                    long deadline = System.currentTimeMillis() + solveTimeMs;
-                    Result result = solver.solve(instance, deadline);
-                    long runtime = System.currentTimeMillis() - start;
-
-                    if(!result.schedule.isValid()) {
-                        System.err.println("ERROR: solver returned an invalid schedule");
-                        System.exit(1);
+                    // the table reports the best makespan and the average runtime of all runs
+                    int makespan = Integer.MAX_VALUE;
+                    long runtime = 0;
+                    for(int r = 0 ; r < numRuns ; r++) {
+                        Run run = executor == null
+                                ? run(solver, instance, solveTimeMs, budget, false)
+                                : submitted.get((instanceId * solversToTest.size() + solverId) * numRuns + r).get();
+                        Result result = run.result;
+
+                        String violation = result.schedule.findViolation();
+                        if(violation != null) {
+                            System.err.println("ERROR: solver returned an invalid schedule");
+                            System.err.println("       " + violation);
+                            System.exit(1);
+                        }
+
+                        assert result.schedule.isValid();
+                        makespan = Math.min(makespan, result.schedule.makespan());
+                        runtime += parallel > 1 ? run.cpuMs : run.wallMs;
+                        if(format != ResultRecord.Format.table) {
+                            ResultRecord record = new ResultRecord(instanceName, solverName, r,
+                                    result.schedule.makespan(), bestKnown, lowerBound, run.wallMs, run.cpuMs, result.cause,
+                                    result.stats.counters());
+                            output.println(record.format(format));
+                            output.flush();
+                        } else if(printStats) {
+                            SolverStats stats = result.stats;
+                            statsLines.add(String.format("%-8s %-14s %3d %12d %12.0f %9d %8d %8d %8d %10.1f%n%8s %s",
+                                    instanceName, solverName, r, stats.evaluations(), stats.evaluationsPerSecond(),
+                                    stats.acceptedMoves(), stats.restarts(), stats.numImprovements(),
+                                    stats.timeToBest(), stats.allocatedBytes() / 1e6, "trace:", stats.trace()));
+                            if(!stats.solverCounters().isEmpty())
+                                statsLines.add("  counters: " + stats.solverCounters());
+                        }
                     }
+                    runtime /= numRuns;
 
-                    assert result.schedule.isValid();
-                    int makespan = result.schedule.makespan();
                     float dist = 100f * (makespan - bestKnown) / (float) bestKnown;
                     runtimes[solverId] += (float) runtime / (float) instances.size();
                     distances[solverId] += dist / (float) instances.size();
+                    float lowerBoundDist = 100f * (makespan - lowerBound) / (float) lowerBound;
+                    lowerBoundDistances[solverId] += lowerBoundDist / (float) instances.size();
 
-                    output.printf("%7d %8s %5.1f        ", runtime, makespan, dist);
-                    output.flush();
+                    if(format == ResultRecord.Format.table) {
+                        output.printf("%7d %8s %5.1f %5.1f  ", runtime, makespan, dist, lowerBoundDist);
+                        output.flush();
+                    }
                 }
-                output.println();
+                if(format == ResultRecord.Format.table)
+                    output.println();
 
             }
 
 
-            output.printf("%-8s %-5s %4s      ", "AVG", "-", "-");
-            for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                output.printf("%7.1f %8s %5.1f        ", runtimes[solverId], "-", distances[solverId]);
+            if(executor != null)
+                executor.shutdown();
+
+            if(format == ResultRecord.Format.table) {
+                output.printf("%-8s %-5s %4s %5s  ", "AVG", "-", "-", "-");
+                for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
+                    output.printf("%7.1f %8s %5.1f %5.1f  ", runtimes[solverId], "-", distances[solverId],
+                            lowerBoundDistances[solverId]);
+                }
+                if(printStats) {
+                    output.println();
+                    output.println();
+                    output.printf("%-8s %-14s %3s %12s %12s %9s %8s %8s %8s %10s%n", "instance", "solver", "run",
+                            "evaluations", "evals/s", "moves", "restarts", "improved", "best_ms", "alloc_MB");
+                    for(String line : statsLines)
+                        output.println(line);
+                }
             }
+            output.flush();
 
 
 
@@ -151,4 +345,58 @@ public class Main {
             System.exit(1);
         }
     }
+
+    /** Result of a solver on an instance, with its wall-clock and CPU times in milliseconds. */
+    private static final class Run {
+        final Result result;
+        final long wallMs;
+        final long cpuMs;
+
+        Run(Result result, long wallMs, long cpuMs) {
+            this.result = result;
+            this.wallMs = wallMs;
+            this.cpuMs = cpuMs;
+        }
+    }
+
+    /**
+     * Solves the instance with the solver, measuring the wall-clock time and the CPU time (the wall-clock time if CPU
+     * time is not supported by the JVM).
+     * In sequential mode, the CPU time is the one of the whole process, so that it includes the worker threads of the
+     * multi-threaded solvers (and the few JVM threads, GC and compilation). In parallel mode, where several runs share
+     * the process, it is the one of the current thread : solvers are then given a single worker, which runs on it.
+     * Without budget, the solver is given solveTimeMs. Otherwise it gets its share of the budget, and anytime solvers
+     * are stopped when they stagnate or given more time when they are still improving.
+     */
+    private static Run run(Solver solver, Instance instance, long solveTimeMs, TimeBudget budget, boolean parallel) {
+        long startCpu = cpuTime(parallel);
+        long start = System.currentTimeMillis();
+        Result result;
+        if(budget == null) {
+            result = solver.solve(instance, start + solveTimeMs);
+        } else {
+            TimeBudget.Share share = budget.start(instance);
+            try {
+                result = solver.solve(instance, share.deadline(), share);
+            } finally {
+                share.finish();
+            }
+        }
+        long wallMs = System.currentTimeMillis() - start;
+        long endCpu = cpuTime(parallel);
+        long cpuMs = startCpu < 0 || endCpu < 0 ? wallMs : (endCpu - startCpu) / 1_000_000;
+        return new Run(result, wallMs, cpuMs);
+    }
+
+    /** CPU time in nanoseconds of the current thread, or of the whole process if not `currentThread`. -1 if unsupported. */
+    private static long cpuTime(boolean currentThread) {
+        if(currentThread) {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+        }
+        OperatingSystemMXBean system = ManagementFactory.getOperatingSystemMXBean();
+        if(system instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean) system).getProcessCpuTime();
+        return -1;
+    }
 }
@@ -5,18 +5,28 @@ import java.util.Optional;
 public class Result {
 
     public Result(Instance instance, Schedule schedule, ExitCause cause) {
+        this(instance, schedule, cause, new SolverStats().stop());
+    }
+
+    public Result(Instance instance, Schedule schedule, ExitCause cause, SolverStats stats) {
         this.instance = instance;
         this.schedule = schedule;
         this.cause = cause;
+        this.stats = stats;
     }
 
     public enum ExitCause {
-        Timeout, ProvedOptimal, Blocked
+        Timeout, ProvedOptimal, Blocked,
+        /** stopped at the request of its IncumbentListener */
+        Cancelled
     }
 
     public final Instance instance;
     public final Schedule schedule;
     public final ExitCause cause;
 
+    /** Statistics of the run of the solver (evaluations, improvements, ...), empty for simple solvers. */
+    public final SolverStats stats;
+
 
 }
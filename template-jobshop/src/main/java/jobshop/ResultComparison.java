@@ -0,0 +1,116 @@
+package jobshop;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two result files written by Main (CSV or JSON Lines) to detect performance regressions.
+ *
+ * Runs are grouped by (instance, solver) and averaged. A pair is a regression when the candidate makespan is larger
+ * than the base one, or when its CPU cost grew by more than the given threshold (and by more than a few milliseconds,
+ * to ignore the noise of very short runs). Pairs present in only one of the files are ignored.
+ *
+ * The CPU cost is the CPU time of the runs (worker threads included) when they all stopped on their own : greedy
+ * solvers, descent, sb, and any solver proving optimality. Runs stopped by the deadline (random, multi_descent, taboo,
+ * tsab, sa, bnb without proof) use the whole time they are given whatever their speed, so their cost is the CPU time
+ * per million evaluations instead, and is not checked if the solver does not count its evaluations.
+ * Both files must be written in the same mode : the CPU time of --parallel runs is the one of a single worker.
+ */
+public final class ResultComparison {
+
+    /** CPU time differences under this value (in milliseconds) are never considered as regressions */
+    private static final double CPU_NOISE_MS = 5;
+
+    private ResultComparison() {}
+
+    /** Average makespan and CPU time of the runs of an (instance, solver) pair. */
+    private static final class Summary {
+        double makespan = 0;
+        double cpuMs = 0;
+        long evaluations = 0;
+        int runs = 0;
+        /** true if a run was stopped by the deadline or by a request, instead of stopping on its own */
+        boolean interrupted = false;
+
+        void add(ResultRecord record) {
+            makespan += record.makespan;
+            cpuMs += record.cpuMs;
+            evaluations += record.counters.getOrDefault("evaluations", 0L);
+            interrupted |= record.cause == Result.ExitCause.Timeout || record.cause == Result.ExitCause.Cancelled;
+            runs++;
+        }
+
+        double makespan() {
+            return makespan / runs;
+        }
+
+        double cpuMs() {
+            return cpuMs / runs;
+        }
+
+        /** CPU time in milliseconds per million evaluations, NaN if no evaluation was counted. */
+        double cpuMsPerMillionEvaluations() {
+            return evaluations == 0 ? Double.NaN : 1e6 * cpuMs / evaluations;
+        }
+    }
+
+    /** @throws IllegalArgumentException if a line is not a valid record, with the file and the line number */
+    private static Map<String, Summary> read(Path file) throws IOException {
+        Map<String, Summary> summaries = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file);
+        for(int i = 0; i < lines.size(); i++) {
+            ResultRecord record;
+            try {
+                record = ResultRecord.parse(lines.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(file + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+            if(record != null)
+                summaries.computeIfAbsent(record.instance + " " + record.solver, k -> new Summary()).add(record);
+        }
+        return summaries;
+    }
+
+    /**
+     * Prints the comparison of the two files and returns the number of regressions.
+     *
+     * @param cpuThreshold relative increase of the CPU cost (in percents) above which a pair is a regression
+     * @throws IllegalArgumentException if a line of either file is not a valid record
+     */
+    public static int compare(Path base, Path candidate, double cpuThreshold, PrintStream output) throws IOException {
+        Map<String, Summary> before = read(base);
+        Map<String, Summary> after = read(candidate);
+
+        output.printf("%-8s %-14s %10s %10s %7s %10s %10s %7s %-6s%n",
+                "instance", "solver", "makespan", "(base)", "diff%", "cpu", "(base)", "diff%", "unit");
+        int regressions = 0;
+        for(Map.Entry<String, Summary> entry : after.entrySet()) {
+            Summary b = before.get(entry.getKey());
+            if(b == null)
+                continue;
+            Summary a = entry.getValue();
+            double makespanDiff = 100 * (a.makespan() - b.makespan()) / b.makespan();
+            boolean perEvaluation = a.interrupted || b.interrupted;
+            double cost = perEvaluation ? a.cpuMsPerMillionEvaluations() : a.cpuMs();
+            double baseCost = perEvaluation ? b.cpuMsPerMillionEvaluations() : b.cpuMs();
+            // NaN when the evaluations are not counted : the comparison is then false
+            double cpuDiff = baseCost == 0 ? 0 : 100 * (cost - baseCost) / baseCost;
+            boolean slower = cpuDiff > cpuThreshold
+                    && (perEvaluation ? a.cpuMs() > CPU_NOISE_MS : cost - baseCost > CPU_NOISE_MS);
+            boolean regression = a.makespan() > b.makespan() || slower;
+            String[] key = entry.getKey().split(" ");
+            output.printf("%-8s %-14s %10.1f %10.1f %7.1f %10.1f %10.1f %7.1f %-6s%s%n",
+                    key[0], key[1], a.makespan(), b.makespan(), makespanDiff, cost, baseCost, cpuDiff,
+                    perEvaluation ? "ms/M" : "ms", regression ? "  REGRESSION" : "");
+            if(regression)
+                regressions++;
+        }
+        output.println(regressions + " regression(s)");
+        return regressions;
+    }
+}
@@ -0,0 +1,158 @@
+package jobshop;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Machine-readable record of one run of a solver on an instance, written by Main in CSV or JSON Lines and read back
+ * by ResultComparison.
+ */
+public final class ResultRecord {
+
+    public enum Format {
+        table, csv, jsonl
+    }
+
+    public final String instance;
+    public final String solver;
+    /** index of the run, when each (instance, solver) pair is solved several times */
+    public final int run;
+    public final int makespan;
+    public final int bestKnown;
+    /** lower bound of the makespan of the instance (see LowerBound), 0 if unknown */
+    public final int lowerBound;
+    public final long wallMs;
+    public final long cpuMs;
+    public final Result.ExitCause cause;
+    public final Map<String, Long> counters;
+
+    public ResultRecord(String instance, String solver, int run, int makespan, int bestKnown, int lowerBound,
+                        long wallMs, long cpuMs, Result.ExitCause cause, Map<String, Long> counters) {
+        this.instance = instance;
+        this.solver = solver;
+        this.run = run;
+        this.makespan = makespan;
+        this.bestKnown = bestKnown;
+        this.lowerBound = lowerBound;
+        this.wallMs = wallMs;
+        this.cpuMs = cpuMs;
+        this.cause = cause;
+        this.counters = new LinkedHashMap<>(counters);
+    }
+
+    /** Normalized distance to the best known result, in percents. */
+    public double gap() {
+        return 100.0 * (makespan - bestKnown) / bestKnown;
+    }
+
+    /** Normalized distance to the lower bound, in percents. NaN if the lower bound is unknown. */
+    public double lowerBoundGap() {
+        return lowerBound <= 0 ? Double.NaN : 100.0 * (makespan - lowerBound) / lowerBound;
+    }
+
+    public static final String CSV_HEADER =
+            "instance,solver,run,makespan,best,gap,lower_bound,lb_gap,wall_ms,cpu_ms,exit_cause,counters";
+
+    /** CSV line, counters being written as `name=value` pairs separated by semicolons. */
+    public String toCsv() {
+        StringBuilder c = new StringBuilder();
+        for(Map.Entry<String, Long> counter : counters.entrySet()) {
+            if(c.length() > 0)
+                c.append(';');
+            c.append(counter.getKey()).append('=').append(counter.getValue());
+        }
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.2f,%d,%.2f,%d,%d,%s,%s",
+                instance, solver, run, makespan, bestKnown, gap(), lowerBound, lowerBoundGap(), wallMs, cpuMs, cause, c);
+    }
+
+    public String toJson() {
+        StringBuilder c = new StringBuilder();
+        for(Map.Entry<String, Long> counter : counters.entrySet()) {
+            if(c.length() > 0)
+                c.append(',');
+            c.append('"').append(counter.getKey()).append("\":").append(counter.getValue());
+        }
+        String lowerBoundGap = lowerBound <= 0 ? "null" : String.format(Locale.ROOT, "%.2f", lowerBoundGap());
+        return String.format(Locale.ROOT,
+                "{\"instance\":\"%s\",\"solver\":\"%s\",\"run\":%d,\"makespan\":%d,\"best\":%d,\"gap\":%.2f," +
+                        "\"lower_bound\":%d,\"lb_gap\":%s,\"wall_ms\":%d,\"cpu_ms\":%d,\"exit_cause\":\"%s\"," +
+                        "\"counters\":{%s}}",
+                instance, solver, run, makespan, bestKnown, gap(), lowerBound, lowerBoundGap, wallMs, cpuMs, cause, c);
+    }
+
+    public String format(Format format) {
+        return format == Format.csv ? toCsv() : toJson();
+    }
+
+    /**
+     * Parses a line written by toCsv(), returns null for the header.
+     * Lines without the lower bound columns, written by former versions, are accepted as well.
+     */
+    public static ResultRecord fromCsv(String line) {
+        if(line.startsWith("instance,"))
+            return null;
+        String[] f = line.split(",", -1);
+        if(f.length != 10 && f.length != 12)
+            throw new IllegalArgumentException("Malformed CSV record: " + line);
+        // index of the wall_ms column
+        int w = f.length == 12 ? 8 : 6;
+        try {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            if(!f[w + 3].isEmpty()) {
+                for(String counter : f[w + 3].split(";")) {
+                    String[] kv = counter.split("=");
+                    counters.put(kv[0], Long.parseLong(kv[1]));
+                }
+            }
+            int lowerBound = f.length == 12 ? Integer.parseInt(f[6]) : 0;
+            return new ResultRecord(f[0], f[1], Integer.parseInt(f[2]), Integer.parseInt(f[3]), Integer.parseInt(f[4]),
+                    lowerBound, Long.parseLong(f[w]), Long.parseLong(f[w + 1]), Result.ExitCause.valueOf(f[w + 2]),
+                    counters);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed CSV record: " + line, e);
+        }
+    }
+
+    private static final Pattern JSON_FIELD = Pattern.compile("\"(\\w+)\":(\"[^\"]*\"|-?[0-9.]+)");
+    private static final Pattern JSON_COUNTERS = Pattern.compile("\"counters\":\\{([^}]*)}");
+
+    /** Parses a line written by toJson(). */
+    public static ResultRecord fromJson(String line) {
+        Matcher countersMatcher = JSON_COUNTERS.matcher(line);
+        Map<String, Long> counters = new LinkedHashMap<>();
+        String fields = line;
+        if(countersMatcher.find()) {
+            Matcher m = JSON_FIELD.matcher(countersMatcher.group(1));
+            while(m.find())
+                counters.put(m.group(1), Long.parseLong(m.group(2)));
+            fields = line.substring(0, countersMatcher.start()) + line.substring(countersMatcher.end());
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        Matcher m = JSON_FIELD.matcher(fields);
+        while(m.find())
+            values.put(m.group(1), m.group(2).replace("\"", ""));
+        try {
+            return new ResultRecord(values.get("instance"), values.get("solver"), Integer.parseInt(values.get("run")),
+                    Integer.parseInt(values.get("makespan")), Integer.parseInt(values.get("best")),
+                    Integer.parseInt(values.getOrDefault("lower_bound", "0")), Long.parseLong(values.get("wall_ms")), Long.parseLong(values.get("cpu_ms")),
+                    Result.ExitCause.valueOf(values.get("exit_cause")), counters);
+        } catch (NullPointerException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed JSON record: " + line, e);
+        }
+    }
+
+    /**
+     * Parses a line of a result file, in either format. Returns null for blank lines and CSV headers.
+     *
+     * @throws IllegalArgumentException if the line is not a valid record
+     */
+    public static ResultRecord parse(String line) {
+        line = line.trim();
+        if(line.isEmpty())
+            return null;
+        return line.startsWith("{") ? fromJson(line) : fromCsv(line);
+    }
+}
@@ -4,54 +4,107 @@ package jobshop;
 import jobshop.encodings.Task;
 
 import java.util.*;
-import java.util.stream.IntStream;
 
 public class Schedule {
     public final Instance pb;
     // start times of each job and task
-    // times[j][i] is the start time of task (j,i) : i^th task of the j^th job
-    final int[][] times;
+    // times[op] is the start time of the task with operation id op (see Instance.op(job, task))
+    final int[] times;
+
+    // for each task, the task whose end determines its start time (-1 for tasks starting at 0),
+    // as recorded by the decoder that built this schedule. null if unknown.
+    private final int[] criticalPredecessor;
 
     public Schedule(Instance pb, int[][] times) {
         this.pb = pb;
-        this.times = new int[pb.numJobs][];
+        this.times = new int[pb.numOps];
         for(int j = 0 ; j < pb.numJobs ; j++) {
-            this.times[j] = Arrays.copyOf(times[j], pb.numTasks);
+            System.arraycopy(times[j], 0, this.times, pb.op(j, 0), pb.numTasks);
         }
+        this.criticalPredecessor = null;
+    }
+
+    /** Creates a schedule from the start times of all tasks indexed by operation id.
+     * The array is not copied and must not be modified afterwards. */
+    public Schedule(Instance pb, int[] times) {
+        this(pb, times, null);
+    }
+
+    /** Creates a schedule from the start times of all tasks and, for each of them, the task whose end determines
+     * its start time (-1 for tasks starting at 0). This allows critical paths to be extracted without any search.
+     * Both arrays are indexed by operation id, they are not copied and must not be modified afterwards. */
+    public Schedule(Instance pb, int[] times, int[] criticalPredecessor) {
+        assert times.length == pb.numOps;
+        this.pb = pb;
+        this.times = times;
+        this.criticalPredecessor = criticalPredecessor;
     }
 
     public int startTime(int job, int task) {
-        return times[job][task];
+        return times[pb.op(job, task)];
+    }
+
+    public int startTime(int op) {
+        return times[op];
+    }
+
+    public int endTime(int op) {
+        return times[op] + pb.duration(op);
     }
 
     /** Returns true if this schedule is valid (no constraint is violated) */
     public boolean isValid() {
+        return findViolation() == null;
+    }
+
+    /**
+     * Returns a description of the first violated constraint, or null if this schedule is valid.
+     *
+     * The tasks of each machine are sorted by start time so that only consecutive tasks need to be checked
+     * for overlaps, which makes the validation O(N log J) for N tasks and J jobs.
+     */
+    public String findViolation() {
         for(int j = 0 ; j<pb.numJobs ; j++) {
-            for(int t = 1 ; t<pb.numTasks ; t++) {
-                if(startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t))
-                    return false;
-            }
             for(int t = 0 ; t<pb.numTasks ; t++) {
                 if(startTime(j, t) < 0)
-                    return false;
+                    return "Task "+pb.task(pb.op(j, t))+" starts at negative time "+startTime(j, t);
+                if(t > 0 && startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t))
+                    return "Task "+pb.task(pb.op(j, t))+" starts at "+startTime(j, t)
+                            +" before the end of its job predecessor "+pb.task(pb.op(j, t-1))
+                            +" at "+(startTime(j, t-1) + pb.duration(j, t-1));
             }
         }
 
+        // sort keys : start time in the high bits and operation id in the low bits
+        // (start times are known to be non-negative at this point)
+        long[] keys = new long[pb.numJobs];
         for (int machine = 0 ; machine < pb.numMachines ; machine++) {
-            for(int j1=0 ; j1<pb.numJobs ; j1++) {
-                int t1 = pb.task_with_machine(j1, machine);
-                for(int j2=j1+1 ; j2<pb.numJobs ; j2++) {
-                    int t2 = pb.task_with_machine(j2, machine);
-
-                    boolean t1_first = startTime(j1, t1) + pb.duration(j1, t1) <= startTime(j2, t2);
-                    boolean t2_first = startTime(j2, t2) + pb.duration(j2, t2) <= startTime(j1, t1);
-
-                    if(!t1_first && !t2_first)
-                        return false;
-                }
+            for(int j = 0 ; j<pb.numJobs ; j++) {
+                int op = pb.op(j, pb.task_with_machine(j, machine));
+                keys[j] = ((long) startTime(op) << 32) | op;
+            }
+            Arrays.sort(keys);
+            for(int i = 1 ; i<pb.numJobs ; i++) {
+                int prev = (int) keys[i-1];
+                int next = (int) keys[i];
+                if(endTime(prev) > startTime(next))
+                    return "Tasks "+pb.task(prev)+" ["+startTime(prev)+", "+endTime(prev)+"[ and "
+                            +pb.task(next)+" ["+startTime(next)+", "+endTime(next)+"[ overlap on machine "+machine;
             }
         }
 
+        return null;
+    }
+
+    /**
+     * Throws an IllegalStateException describing the first violated constraint if this schedule is invalid.
+     * Meant to be used in assertions, e.g. `assert schedule.checkValid();` so that solvers validate their
+     * incumbents when assertions are enabled (java -ea).
+     */
+    public boolean checkValid() {
+        String violation = findViolation();
+        if(violation != null)
+            throw new IllegalStateException("Invalid schedule: "+violation);
         return true;
     }
 
@@ -86,51 +139,71 @@ public class Schedule {
     }
 
     public List<Task> criticalPath() {
+        int[] path = criticalPathOps();
+        List<Task> tasks = new ArrayList<>(path.length);
+        for(int op : path)
+            tasks.add(pb.task(op));
+        assert isCriticalPath(tasks);
+        return tasks;
+    }
+
+    /** Returns a critical path as a sequence of operation ids. */
+    public int[] criticalPathOps() {
         // select task with greatest end time
-        Task ldd = IntStream.range(0, pb.numJobs)
-                .mapToObj(j -> new Task(j, pb.numTasks-1))
-                .max(Comparator.comparing(this::endTime))
-                .get();
+        int ldd = pb.op(0, pb.numTasks-1);
+        for(int j = 1 ; j < pb.numJobs ; j++) {
+            int last = pb.op(j, pb.numTasks-1);
+            if(endTime(last) > endTime(ldd))
+                ldd = last;
+        }
         assert endTime(ldd) == makespan();
 
-        // list that will contain the critical path.
+        if(criticalPredecessor != null) {
+            // follow the predecessors recorded by the decoder, in O(length of the path)
+            int length = 0;
+            for(int op = ldd ; op >= 0 ; op = criticalPredecessor[op])
+                length++;
+            int[] path = new int[length];
+            for(int op = ldd ; op >= 0 ; op = criticalPredecessor[op])
+                path[--length] = op;
+            return path;
+        }
+
+        // array that will contain the critical path.
         // we construct it from the end, starting with the
         // task that finishes last
-        LinkedList<Task> path = new LinkedList<>();
-        path.add(0,ldd);
+        int[] path = new int[pb.numOps];
+        int first = pb.numOps - 1;
+        path[first] = ldd;
 
         // keep adding tasks to the path until the first task in the path
         // starts a time 0
-        while(startTime(path.getFirst()) != 0) {
-            Task cur = path.getFirst();
-            int machine = pb.machine(cur.job, cur.task);
+        while(startTime(path[first]) != 0) {
+            int cur = path[first];
+            int machine = pb.machine(cur);
 
             // will contain the task that was delaying the start
             // of our current task
-            Optional<Task> latestPredecessor = Optional.empty();
+            int latestPredecessor = -1;
 
-            if(cur.task > 0) {
+            if(pb.taskOf(cur) > 0) {
                 // our current task has a predecessor on the job
-                Task predOnJob = new Task(cur.job, cur.task -1);
-
                 // if it was the delaying task, save it to predecessor
-                if(endTime(predOnJob) == startTime(cur))
-                    latestPredecessor = Optional.of(predOnJob);
+                if(endTime(cur - 1) == startTime(cur))
+                    latestPredecessor = cur - 1;
             }
-            if(!latestPredecessor.isPresent()) {
+            for(int j = 0 ; latestPredecessor < 0 && j < pb.numJobs ; j++) {
                 // no latest predecessor found yet, look among tasks executing on the same machine
-                latestPredecessor = IntStream.range(0, pb.numJobs)
-                        .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine)))
-                        .filter(t -> endTime(t) == startTime(cur))
-                        .findFirst();
+                int other = pb.op(j, pb.task_with_machine(j, machine));
+                if(endTime(other) == startTime(cur))
+                    latestPredecessor = other;
             }
             // at this point we should have identified a latest predecessor, either on the job or on the machine
-            assert latestPredecessor.isPresent() && endTime(latestPredecessor.get()) == startTime(cur);
+            assert latestPredecessor >= 0 && endTime(latestPredecessor) == startTime(cur);
             // insert predecessor at the beginning of the path
-            path.add(0, latestPredecessor.get());
+            path[--first] = latestPredecessor;
         }
-        assert isCriticalPath(path);
-        return path;
+        return Arrays.copyOfRange(path, first, pb.numOps);
     }
 
     public String toString(){
@@ -138,7 +211,7 @@ public class Schedule {
         for(int i = 0; i<pb.numJobs;i++){
             //System.out.print("|");
             for(int j = 0; j< pb.numTasks;j++){
-                result+= times[i][j] + "\t";
+                result+= startTime(i, j) + "\t";
             }
             System.out.println("");
         }
@@ -4,4 +4,16 @@ public interface Solver {
 
     Result solve(Instance instance, long deadline);
 
+    /**
+     * Anytime variant of solve : each improving solution is published to the listener as soon as it is found, and
+     * the solver stops early (with the Cancelled exit cause) when the listener requests it.
+     *
+     * By default, the solver runs to completion and only its final solution is published.
+     */
+    default Result solve(Instance instance, long deadline, IncumbentListener listener) {
+        Result result = solve(instance, deadline);
+        listener.onIncumbent(result.schedule, result.schedule.makespan(), System.currentTimeMillis());
+        return result;
+    }
+
 }
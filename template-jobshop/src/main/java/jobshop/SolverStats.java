@@ -0,0 +1,215 @@
+package jobshop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of a solver run, attached to its Result : number of neighbor evaluations, accepted moves and restarts,
+ * trace of the improvements of the best solution (time, iteration and makespan) and bytes allocated by the solver.
+ * Solvers may add their own counters, such as the restarts of each worker of MultiStartDescentSolver.
+ *
+ * A SolverStats is not thread-safe, so that updating it only costs a field increment : solvers using several
+ * threads give each worker its own SolverStats and merge them at the end.
+ * Elapsed time and allocations are measured between the construction and the call to stop(), on the calling thread.
+ */
+public final class SolverStats {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private long evaluations = 0;
+    private long acceptedMoves = 0;
+    private long restarts = 0;
+    /** counters specific to a solver, by name */
+    private final Map<String, Long> solverCounters = new LinkedHashMap<>();
+
+    private final long startNanos;
+    private long elapsedNanos = -1;
+    private final long startAllocated;
+    private long allocatedBytes = 0;
+
+    // improvement trace : time since the start (in ms), iteration and new best makespan
+    private long[] traceTimes = new long[16];
+    private long[] traceIterations = new long[16];
+    private int[] traceMakespans = new int[16];
+    private int traceSize = 0;
+
+    /** Starts measuring the run of a solver on the current thread. */
+    public SolverStats() {
+        this.startNanos = System.nanoTime();
+        this.startAllocated = allocatedByCurrentThread();
+    }
+
+    /** Bytes allocated so far by the current thread, -1 if the JVM does not support this measure. */
+    private static long allocatedByCurrentThread() {
+        if(THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /** Records the evaluation of `count` neighbors. */
+    public void evaluated(long count) {
+        evaluations += count;
+    }
+
+    /** Sets a counter specific to the solver, reported after the common ones. */
+    public void counter(String name, long value) {
+        solverCounters.put(name, value);
+    }
+
+    /** Records an accepted move. */
+    public void accepted() {
+        acceptedMoves++;
+    }
+
+    /** Records a restart of the search (from a new start point or a saved solution). */
+    public void restarted() {
+        restarts++;
+    }
+
+    /**
+     * Records a solution found at the given iteration. It is added to the improvement trace only if it is better
+     * than all the solutions recorded so far, so solvers can call this method for every new solution they accept.
+     */
+    public void improved(long iteration, int makespan) {
+        if(traceSize == 0 || makespan < traceMakespans[traceSize - 1])
+            addToTrace((System.nanoTime() - startNanos) / 1_000_000, iteration, makespan);
+    }
+
+    private void addToTrace(long time, long iteration, int makespan) {
+        if(traceSize == traceTimes.length) {
+            traceTimes = Arrays.copyOf(traceTimes, 2 * traceSize);
+            traceIterations = Arrays.copyOf(traceIterations, 2 * traceSize);
+            traceMakespans = Arrays.copyOf(traceMakespans, 2 * traceSize);
+        }
+        traceTimes[traceSize] = time;
+        traceIterations[traceSize] = iteration;
+        traceMakespans[traceSize] = makespan;
+        traceSize++;
+    }
+
+    /** Ends the measure of elapsed time and allocations. Must be called on the thread that created this object. */
+    public SolverStats stop() {
+        if(elapsedNanos < 0) {
+            elapsedNanos = System.nanoTime() - startNanos;
+            long allocated = allocatedByCurrentThread();
+            allocatedBytes += startAllocated < 0 || allocated < 0 ? 0 : allocated - startAllocated;
+        }
+        return this;
+    }
+
+    /**
+     * Adds the statistics of a worker (stopped) to this one. Its improvements are kept only if they improve on the
+     * best makespan of the merged trace at the same time, so that the trace stays the one of the best solution overall.
+     */
+    public void merge(SolverStats worker) {
+        evaluations += worker.evaluations;
+        acceptedMoves += worker.acceptedMoves;
+        restarts += worker.restarts;
+        allocatedBytes += worker.allocatedBytes;
+        worker.solverCounters.forEach((name, value) -> solverCounters.merge(name, value, Long::sum));
+
+        long offset = (worker.startNanos - startNanos) / 1_000_000;
+        long[] times = Arrays.copyOf(traceTimes, traceSize);
+        long[] iterations = Arrays.copyOf(traceIterations, traceSize);
+        int[] makespans = Arrays.copyOf(traceMakespans, traceSize);
+        int size = traceSize;
+        traceSize = 0;
+        int i = 0, j = 0;
+        int best = Integer.MAX_VALUE;
+        while(i < size || j < worker.traceSize) {
+            boolean mine = j == worker.traceSize || (i < size && times[i] <= worker.traceTimes[j] + offset);
+            long time = mine ? times[i] : worker.traceTimes[j] + offset;
+            long iteration = mine ? iterations[i] : worker.traceIterations[j];
+            int makespan = mine ? makespans[i++] : worker.traceMakespans[j++];
+            if(makespan < best) {
+                addToTrace(time, iteration, makespan);
+                best = makespan;
+            }
+        }
+    }
+
+    public long evaluations() {
+        return evaluations;
+    }
+
+    public long acceptedMoves() {
+        return acceptedMoves;
+    }
+
+    public long restarts() {
+        return restarts;
+    }
+
+    /** Bytes allocated by the solver threads, 0 if not supported by the JVM. */
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long elapsedMs() {
+        return (elapsedNanos < 0 ? System.nanoTime() - startNanos : elapsedNanos) / 1_000_000;
+    }
+
+    public double evaluationsPerSecond() {
+        long elapsed = elapsedNanos < 0 ? System.nanoTime() - startNanos : elapsedNanos;
+        return elapsed == 0 ? 0 : evaluations * 1e9 / elapsed;
+    }
+
+    public int numImprovements() {
+        return traceSize;
+    }
+
+    /** Time (in ms since the start) of the i-th improvement. */
+    public long improvementTime(int i) {
+        return traceTimes[i];
+    }
+
+    public long improvementIteration(int i) {
+        return traceIterations[i];
+    }
+
+    public int improvementMakespan(int i) {
+        return traceMakespans[i];
+    }
+
+    /** Time (in ms since the start) at which the best solution was found, 0 if no improvement was recorded. */
+    public long timeToBest() {
+        return traceSize == 0 ? 0 : traceTimes[traceSize - 1];
+    }
+
+    /** Counters reported in the result records of Main. */
+    public Map<String, Long> counters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("evaluations", evaluations);
+        counters.put("moves", acceptedMoves);
+        counters.put("restarts", restarts);
+        counters.put("improvements", (long) traceSize);
+        counters.put("time_to_best_ms", timeToBest());
+        counters.put("allocated_bytes", allocatedBytes);
+        counters.putAll(solverCounters);
+        return counters;
+    }
+
+    /** Counters specific to the solver, as `name=value` separated by spaces. */
+    public String solverCounters() {
+        StringBuilder s = new StringBuilder();
+        solverCounters.forEach((name, value) -> s.append(s.length() == 0 ? "" : " ").append(name).append('=').append(value));
+        return s.toString();
+    }
+
+    /** Improvement trace, as `time_ms@iteration:makespan` separated by spaces. */
+    public String trace() {
+        StringBuilder s = new StringBuilder();
+        for(int i = 0 ; i < traceSize ; i++) {
+            if(i > 0)
+                s.append(' ');
+            s.append(traceTimes[i]).append("ms@").append(traceIterations[i]).append(':').append(traceMakespans[i]);
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package jobshop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Global time budget shared by all the runs of a batch (--budget mode of Main).
+ *
+ * When a run starts, it gets a share of the time left that is proportional to the size (number of operations) of its
+ * instance among the runs not started yet, once the time reserved by the runs in progress on the other threads is
+ * set aside. Runs that finish early (the solver proved optimality, reached a local optimum or stagnated) thus leave
+ * their unused time to the following ones, which is why the runs of the smallest instances should be started first.
+ *
+ * A run stagnates when its solver has not published a better solution during the last STAGNATION fraction of its
+ * share : anytime solvers are then asked to stop through their IncumbentListener. Conversely, a run that is still
+ * improving when its deadline comes is extended by its part (in proportion to its size) of the surplus : the time
+ * left beyond the one planned for the runs not started yet at the initial rate of the budget, which comes from the
+ * runs that finished early. This only applies to the solvers that poll IncumbentListener.deadline (random, descent,
+ * taboo and tsab).
+ */
+public final class TimeBudget {
+
+    /** fraction of its share of the budget after which a run without improvement is stopped */
+    static final double STAGNATION = 0.25;
+    /** time before its deadline from which a run that is still improving asks for an extension */
+    static final long EXTENSION_MARGIN_MS = 2;
+    /** extensions shorter than this are not worth it and not granted */
+    static final long MIN_EXTENSION_MS = 10;
+
+    private final long end;
+    private final int parallel;
+    /** time per operation planned when the budget is created */
+    private final double plannedMsPerOp;
+    /** total number of operations of the instances of the runs not started yet */
+    private long remainingOps;
+    /** runs in progress */
+    private final List<Share> running = new ArrayList<>();
+
+    /**
+     * @param budgetMs total wall-clock time of the batch, starting now
+     * @param parallel number of runs executed at the same time
+     * @param totalOps sum of the number of operations of the instances of all the runs of the batch
+     */
+    public TimeBudget(long budgetMs, int parallel, long totalOps) {
+        if(budgetMs <= 0 || parallel < 1 || totalOps <= 0)
+            throw new IllegalArgumentException("Invalid budget: " + budgetMs + "ms, " + parallel + " thread(s), " + totalOps + " operations");
+        this.end = System.currentTimeMillis() + budgetMs;
+        this.parallel = parallel;
+        this.remainingOps = totalOps;
+        this.plannedMsPerOp = (double) budgetMs * parallel / totalOps;
+    }
+
+    /** Starts a run on the instance and returns its share. Share.finish() must be called once it is over. */
+    public synchronized Share start(Instance instance) {
+        long now = System.currentTimeMillis();
+        remainingOps -= instance.numOps;
+        Share share = new Share(now, now + available(instance.numOps, now), instance.numOps);
+        running.add(share);
+        return share;
+    }
+
+    /**
+     * Time given to a run of `numOps` operations starting now : its part of the time left by the other runs in
+     * progress, in proportion to its size among the runs not started yet.
+     */
+    private long available(int numOps, long now) {
+        long left = Math.max(0, end - now);
+        long ops = remainingOps + numOps;
+        return ops <= 0 ? left : Math.min(left, capacity(null, now) * numOps / ops);
+    }
+
+    /** Time left on all threads, except the one reserved by the runs in progress other than `self`. */
+    private long capacity(Share self, long now) {
+        long reserved = 0;
+        for(Share share : running) {
+            if(share != self)
+                reserved += Math.max(0, share.deadline - now);
+        }
+        return Math.max(0, Math.max(0, end - now) * parallel - reserved);
+    }
+
+    /** Extends the deadline of the share by its part of the surplus, if it is worth it. */
+    private synchronized void extend(Share share, long now) {
+        long surplus = capacity(share, now) - Math.max(0, share.deadline - now) - (long) (remainingOps * plannedMsPerOp);
+        if(surplus <= 0)
+            return;
+        long extension = Math.min(Math.max(0, end - share.deadline), surplus * share.numOps / (remainingOps + share.numOps));
+        if(extension >= MIN_EXTENSION_MS)
+            share.deadline += extension;
+    }
+
+    /**
+     * Share of the budget given to a run : its listener stops the solver when it stagnates, and extends its deadline
+     * when it is still improving at the end of its share.
+     */
+    public final class Share implements IncumbentListener {
+        private final long start;
+        /** deadline given to the run when it started */
+        private final long initialDeadline;
+        private final int numOps;
+        /** current deadline, only modified while holding the lock of the budget */
+        private volatile long deadline;
+        private volatile long lastImprovement;
+
+        private Share(long start, long deadline, int numOps) {
+            this.start = start;
+            this.initialDeadline = deadline;
+            this.deadline = deadline;
+            this.numOps = numOps;
+            this.lastImprovement = start;
+        }
+
+        /** Deadline of the run, including its extensions. */
+        public long deadline() {
+            return deadline;
+        }
+
+        /** Ends the run, releasing the time it did not use. */
+        public void finish() {
+            synchronized(TimeBudget.this) {
+                running.remove(this);
+            }
+        }
+
+        @Override
+        public void onIncumbent(Schedule schedule, int makespan, long timestamp) {
+            lastImprovement = timestamp;
+        }
+
+        @Override
+        public boolean stopRequested() {
+            return System.currentTimeMillis() - lastImprovement > patience();
+        }
+
+        @Override
+        public long deadline(long deadline) {
+            long now = System.currentTimeMillis();
+            if(this.deadline - now <= EXTENSION_MARGIN_MS && now - lastImprovement <= patience())
+                extend(this, now);
+            return deadline + (this.deadline - initialDeadline);
+        }
+
+        private long patience() {
+            return (long) (STAGNATION * (deadline - start));
+        }
+    }
+
+    /** Listener asking the solver of a run to stop when it stagnates. */
+    public static IncumbentListener stagnation(long start, long deadline) {
+        long patience = (long) (STAGNATION * (deadline - start));
+        return new IncumbentListener() {
+            private volatile long lastImprovement = start;
+
+            @Override
+            public void onIncumbent(Schedule schedule, int makespan, long timestamp) {
+                lastImprovement = timestamp;
+            }
+
+            @Override
+            public boolean stopRequested() {
+                return System.currentTimeMillis() - lastImprovement > patience;
+            }
+        };
+    }
+}
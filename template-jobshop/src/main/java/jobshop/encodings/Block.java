@@ -0,0 +1,51 @@
+package jobshop.encodings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** A block represents a subsequence of the critical path such that all tasks in it execute on the same machine.
+ * This class identifies a block in a ResourceOrder representation.
+ *
+ * Consider the solution in ResourceOrder representation
+ * machine 0 : (0,1) (1,2) (2,2)
+ * machine 1 : (0,2) (2,1) (1,1)
+ * machine 2 : ...
+ *
+ * The block with : machine = 1, firstTask= 0 and lastTask = 1
+ * Represent the task sequence : [(0,2) (2,1)]
+ *
+ * Blocks of a solution are given by ResourceOrder.criticalBlocks().
+ * */
+public final class Block {
+    /** machine on which the block is identified */
+    public final int machine;
+    /** index of the first task of the block */
+    public final int firstTask;
+    /** index of the last task of the block */
+    public final int lastTask;
+
+    public Block(int machine, int firstTask, int lastTask) {
+        this.machine = machine;
+        this.firstTask = firstTask;
+        this.lastTask = lastTask;
+    }
+
+    /** Returns the possible swaps for the Nowicki and Smutnicki neighborhood (N5) of this block */
+    public List<Swap> neighbors() {
+        List<Swap> neighboors = new ArrayList<Swap>();
+        if(lastTask-firstTask == 1){
+            Swap newSwap = new Swap(machine, firstTask, lastTask);
+            neighboors.add(newSwap);
+        }else if(lastTask-firstTask>1){
+            Swap newSwap1 = new Swap(machine, firstTask, firstTask+1);
+            Swap newSwap2 = new Swap(machine, lastTask-1, lastTask);
+            neighboors.add(newSwap1);
+            neighboors.add(newSwap2);
+        }
+        return neighboors;
+    }
+
+    public String toString(){
+        return "( m : " + machine + "\t first: " + firstTask +  "\t last: " + lastTask + " )\n";
+    }
+}
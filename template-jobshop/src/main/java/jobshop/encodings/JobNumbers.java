@@ -5,8 +5,6 @@ import jobshop.Instance;
 import jobshop.Schedule;
 
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.stream.IntStream;
 
 /** Représentation par numéro de job. */
 public class JobNumbers extends Encoding {
@@ -30,23 +28,15 @@ public class JobNumbers extends Encoding {
 
         this.jobs = new int[instance.numJobs * instance.numTasks];
 
-        // for each job indicates which is the next task to be scheduled
-        int[] nextOnJob = new int[instance.numJobs];
-
-        while(Arrays.stream(nextOnJob).anyMatch(t -> t < instance.numTasks)) {
-            Task next = IntStream
-                    // for all jobs numbers
-                    .range(0, instance.numJobs)
-                    // build the next task for this job
-                    .mapToObj(j -> new Task(j, nextOnJob[j]))
-                    // only keep valid tasks (some jobs have no task left to be executed)
-                    .filter(t -> t.task < instance.numTasks)
-                    // select the task with the earliest execution time
-                    .min(Comparator.comparing(t -> schedule.startTime(t.job, t.task)))
-                    .get();
-
-            this.jobs[nextToSet++] = next.job;
-            nextOnJob[next.job] += 1;
+        // tasks are taken by increasing start time. Sort keys : start time in the high bits and operation id in the
+        // low bits, so that tasks starting at the same time are ordered by job, then by index in the job
+        long[] keys = new long[instance.numOps];
+        for(int op = 0 ; op < instance.numOps ; op++) {
+            keys[op] = ((long) schedule.startTime(op) << 32) | op;
+        }
+        Arrays.sort(keys);
+        for(long key : keys) {
+            this.jobs[nextToSet++] = instance.jobOf((int) key);
         }
     }
 
@@ -59,22 +49,31 @@ public class JobNumbers extends Encoding {
         int[] nextTask = new int[instance.numJobs];
 
         // for each task, its start time
-        int[][] startTimes = new int[instance.numJobs][instance.numTasks];
+        int[] startTimes = new int[instance.numOps];
+
+        // for each machine, the last task scheduled on it
+        int[] lastOnResource = new int[instance.numMachines];
+
+        // for each task, the task whose end determines its start time (-1 for tasks starting at 0)
+        int[] criticalPredecessor = new int[instance.numOps];
 
         // compute the earliest start time for every task of every job
         for(int job : jobs) {
             int task = nextTask[job];
-            int machine = instance.machine(job, task);
+            int op = instance.op(job, task);
+            int machine = instance.machine(op);
             // earliest start time for this task
-            int est = task == 0 ? 0 : startTimes[job][task-1] + instance.duration(job, task-1);
-            est = Math.max(est, nextFreeTimeResource[machine]);
+            int jobReleaseTime = task == 0 ? 0 : startTimes[op-1] + instance.duration(op-1);
+            int est = Math.max(jobReleaseTime, nextFreeTimeResource[machine]);
 
-            startTimes[job][task] = est;
-            nextFreeTimeResource[machine] = est + instance.duration(job, task);
+            startTimes[op] = est;
+            criticalPredecessor[op] = est == 0 ? -1 : jobReleaseTime == est ? op - 1 : lastOnResource[machine];
+            lastOnResource[machine] = op;
+            nextFreeTimeResource[machine] = est + instance.duration(op);
             nextTask[job] = task + 1;
         }
 
-        return new Schedule(instance, startTimes);
+        return new Schedule(instance, startTimes, criticalPredecessor);
     }
 
     @Override
@@ -4,29 +4,42 @@ import jobshop.Encoding;
 import jobshop.Instance;
 import jobshop.Schedule;
 
-import java.util.Comparator;
-import java.util.Optional;
-import java.util.stream.IntStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class ResourceOrder extends Encoding {
 
     // for each machine m, taskByMachine[m] is an array of tasks to be
-    // executed on this machine in the same order
-    public final Task[][] tasksByMachine;
+    // executed on this machine in the same order.
+    // Tasks are identified by their operation id (see Instance.op(job, task)), -1 for a slot not yet initialized.
+    // It is only modified through addTask() and swap() so that the cached schedule can be invalidated.
+    private final int[][] tasksByMachine;
     // for each machine, indicate on many tasks have been initialized
     public final int[] nextFreeSlot;
 
+    // for each task, its index in the sequence of its machine (kept up to date by addTask() and swap())
+    private final int[] indexOnMachine;
+
+    // result of the last decoding, valid as long as `decoded` is true (the schedule is null if the order has a cycle)
+    private Schedule schedule;
+    private boolean decoded = false;
+
     /** Creates a new empty resource order. */
 
      public ResourceOrder(Instance instance)
      {
      super(instance);
 
-     // matrix of null elements (null is the default value of objects)
-     tasksByMachine = new Task[instance.numMachines][instance.numJobs];
+     // matrix of uninitialized slots
+     tasksByMachine = new int[instance.numMachines][instance.numJobs];
+     for(int[] tasks : tasksByMachine)
+         Arrays.fill(tasks, -1);
 
      // no task scheduled on any machine (0 is the default value)
      nextFreeSlot = new int[instance.numMachines];
+
+     indexOnMachine = new int[instance.numOps];
      }
 
 
@@ -36,28 +49,97 @@ public class ResourceOrder extends Encoding {
         super(schedule.pb);
         Instance pb = schedule.pb;
 
-        this.tasksByMachine = new Task[pb.numMachines][];
+        this.tasksByMachine = new int[pb.numMachines][pb.numJobs];
         this.nextFreeSlot = new int[instance.numMachines];
+        this.indexOnMachine = new int[instance.numOps];
 
+        // sort keys : start time in the high bits and operation id in the low bits,
+        // so that tasks starting at the same time stay ordered by job
+        long[] keys = new long[pb.numJobs];
         for(int m = 0 ; m<schedule.pb.numMachines ; m++) {
-            final int machine = m;
-
             // for thi machine, find all tasks that are executed on it and sort them by their start time
-            tasksByMachine[m] =
-                    IntStream.range(0, pb.numJobs) // all job numbers
-                            .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine))) // all tasks on this machine (one per job)
-                            .sorted(Comparator.comparing(t -> schedule.startTime(t.job, t.task))) // sorted by start time
-                            .toArray(Task[]::new); // as new array and store in tasksByMachine
+            for(int j = 0 ; j < pb.numJobs ; j++) {
+                int op = pb.op(j, pb.task_with_machine(j, m));
+                keys[j] = ((long) schedule.startTime(op) << 32) | op;
+            }
+            Arrays.sort(keys);
+            for(int i = 0 ; i < pb.numJobs ; i++) {
+                tasksByMachine[m][i] = (int) keys[i];
+                indexOnMachine[(int) keys[i]] = i;
+            }
 
             // indicate that all tasks have been initialized for machine m
             nextFreeSlot[m] = instance.numJobs;
         }
     }
 
+    /** Creates a copy of the given resource order, sharing its (immutable) cached schedule. */
+    private ResourceOrder(ResourceOrder other) {
+        super(other.instance);
+        this.tasksByMachine = new int[instance.numMachines][];
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            this.tasksByMachine[m] = other.tasksByMachine[m].clone();
+        }
+        this.nextFreeSlot = other.nextFreeSlot.clone();
+        this.indexOnMachine = other.indexOnMachine.clone();
+        this.schedule = other.schedule;
+        this.decoded = other.decoded;
+    }
+
+    /** Returns the (operation id of the) index-th task executed on the given machine. */
+    public int taskAt(int machine, int index) {
+        return tasksByMachine[machine][index];
+    }
+
+    /** Returns the index of the given task (operation id) in the sequence of its machine. */
+    public int indexOf(int op) {
+        return indexOnMachine[op];
+    }
+
+    /** Appends the given task (operation id) at the end of the sequence of its machine. */
+    public void addTask(int op) {
+        int machine = instance.machine(op);
+        tasksByMachine[machine][nextFreeSlot[machine]] = op;
+        indexOnMachine[op] = nextFreeSlot[machine];
+        nextFreeSlot[machine]++;
+        decoded = false;
+    }
+
+    /** Exchanges the tasks at indices i1 and i2 on the given machine. */
+    public void swap(int machine, int i1, int i2) {
+        int temp = tasksByMachine[machine][i1];
+        tasksByMachine[machine][i1] = tasksByMachine[machine][i2];
+        tasksByMachine[machine][i2] = temp;
+        indexOnMachine[tasksByMachine[machine][i1]] = i1;
+        indexOnMachine[tasksByMachine[machine][i2]] = i2;
+        decoded = false;
+    }
+
+    /**
+     * Returns the schedule of this resource order, null if it contains a cycle.
+     * The schedule is cached : decoding only happens again after a machine sequence was modified.
+     */
     @Override
     public Schedule toSchedule() {
+        if(!decoded) {
+            schedule = decode();
+            decoded = true;
+        }
+        return schedule;
+    }
+
+    /** Makespan of the schedule of this resource order (cached), Integer.MAX_VALUE if it contains a cycle. */
+    public int makespan() {
+        Schedule s = toSchedule();
+        return s == null ? Integer.MAX_VALUE : s.makespan();
+    }
+
+    private Schedule decode() {
         // indicate for each task that have been scheduled, its start time
-        int [][] startTimes = new int [instance.numJobs][instance.numTasks];
+        int[] startTimes = new int[instance.numOps];
+
+        // for each task, the task whose end determines its start time (-1 for tasks starting at 0)
+        int[] criticalPredecessor = new int[instance.numOps];
 
         // for each job, how many tasks have been scheduled (0 initially)
         int[] nextToScheduleByJob = new int[instance.numJobs];
@@ -68,48 +150,98 @@ public class ResourceOrder extends Encoding {
         // for each machine, earliest time at which the machine can be used
         int[] releaseTimeOfMachine = new int[instance.numMachines];
 
+        // Tasks that have no unscheduled predecessor on their job and machine, identified by their machine.
+        // A task enters the queue when the last of its two predecessors is scheduled, hence at most once.
+        int[] readyMachines = new int[instance.numOps];
+        int head = 0, tail = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            if(instance.taskOf(tasksByMachine[m][0]) == 0)
+                readyMachines[tail++] = m;
+        }
+
+        while(head < tail) {
+            // t is the next task to schedule on its machine and on its job
+            int machine = readyMachines[head++];
+            int t = tasksByMachine[machine][nextToScheduleByMachine[machine]];
+            int job = instance.jobOf(t);
+
+            // compute the earliest start time (est) of the task
+            int jobReleaseTime = instance.taskOf(t) == 0 ? 0 : startTimes[t-1] + instance.duration(t-1);
+            int est = Math.max(jobReleaseTime, releaseTimeOfMachine[machine]);
+            startTimes[t] = est;
+
+            // record the task that delays t : its predecessor on the job if it finishes last, the previous
+            // task on the machine otherwise
+            int index = nextToScheduleByMachine[machine];
+            if(est == 0)
+                criticalPredecessor[t] = -1;
+            else if(jobReleaseTime == est)
+                criticalPredecessor[t] = t - 1;
+            else
+                criticalPredecessor[t] = tasksByMachine[machine][index - 1];
+
+            // mark the task as scheduled
+            nextToScheduleByJob[job]++;
+            nextToScheduleByMachine[machine]++;
+            // increase the release time of the machine
+            releaseTimeOfMachine[machine] = est + instance.duration(t);
 
-        // loop while there remains a job that has unscheduled tasks
-        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
-
-            // selects a task that has noun scheduled predecessor on its job and machine :
-            //  - it is the next to be schedule on a machine
-            //  - it is the next to be scheduled on its job
-            // if there is no such task, we have cyclic dependency and the solution is invalid
-            Optional<Task> schedulable =
-                    IntStream.range(0, instance.numMachines) // all machines ...
-                            .filter(m -> nextToScheduleByMachine[m] < instance.numJobs) // ... with unscheduled jobs
-                            .mapToObj(m -> this.tasksByMachine[m][nextToScheduleByMachine[m]]) // tasks that are next to schedule on a machine ...
-                            .filter(task -> task.task == nextToScheduleByJob[task.job])  // ... and on their job
-                            .findFirst(); // select the first one if any
-
-            if(schedulable.isPresent()) {
-                // we found a schedulable task, lets call it t
-                Task t = schedulable.get();
-                int machine = instance.machine(t.job, t.task);
-
-                // compute the earliest start time (est) of the task
-                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
-                est = Math.max(est, releaseTimeOfMachine[instance.machine(t)]);
-                startTimes[t.job][t.task] = est;
-
-                // mark the task as scheduled
-                nextToScheduleByJob[t.job]++;
-                nextToScheduleByMachine[machine]++;
-                // increase the release time of the machine
-                releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
-            } else {
-                // no tasks are schedulable, there is no solution for this resource ordering
-                return null;
+            // the next task on the machine is ready if its job predecessor was already scheduled
+            if(nextToScheduleByMachine[machine] < instance.numJobs) {
+                int nextOnMachine = tasksByMachine[machine][nextToScheduleByMachine[machine]];
+                if(instance.taskOf(nextOnMachine) == nextToScheduleByJob[instance.jobOf(nextOnMachine)])
+                    readyMachines[tail++] = machine;
             }
+            // the next task on the job is ready if its machine predecessor was already scheduled
+            if(nextToScheduleByJob[job] < instance.numTasks) {
+                int nextMachine = instance.machine(t + 1);
+                int slot = nextToScheduleByMachine[nextMachine];
+                if(slot < instance.numJobs && tasksByMachine[nextMachine][slot] == t + 1)
+                    readyMachines[tail++] = nextMachine;
+            }
+        }
+
+        if(tail < instance.numOps) {
+            // some tasks could not be scheduled : there is a cyclic dependency and no solution for this resource ordering
+            return null;
         }
-        // we exited the loop : all tasks have been scheduled successfully
-        return new Schedule(instance, startTimes);
+        // all tasks have been scheduled successfully
+        return new Schedule(instance, startTimes, criticalPredecessor);
+    }
+
+    /**
+     * Returns the blocks of a critical path of this solution (see Block), in the order of the path.
+     *
+     * The critical path is read from the predecessors recorded while decoding and the index of each task on its
+     * machine is maintained by the resource order : no search is needed.
+     * Returns null if this resource order has no valid schedule.
+     */
+    public List<Block> criticalBlocks() {
+        Schedule schedule = toSchedule();
+        if(schedule == null)
+            return null;
+        int[] path = schedule.criticalPathOps();
+        List<Block> blocks = new ArrayList<>();
+        int first = 0;
+        for(int i = 1 ; i <= path.length ; i++) {
+            // a block ends when the path changes machine
+            if(i == path.length || instance.machine(path[i]) != instance.machine(path[first])) {
+                if(i - first > 1)
+                    blocks.add(new Block(instance.machine(path[first]), indexOnMachine[path[first]], indexOnMachine[path[i-1]]));
+                first = i;
+            }
+        }
+        return blocks;
+    }
+
+    /** Returns the index-th task executed on the given machine. */
+    public Task getTask(int machine, int index) {
+        return instance.task(tasksByMachine[machine][index]);
     }
 
     /** Creates an exact copy of this resource order. */
     public ResourceOrder copy() {
-        return new ResourceOrder(this.toSchedule());
+        return new ResourceOrder(this);
     }
 
       @Override
@@ -121,7 +253,7 @@ public class ResourceOrder extends Encoding {
               s.append("Machine ").append(m).append(" : ");
               for(int j=0; j<instance.numJobs; j++)
               {
-                  s.append(tasksByMachine[m][j]).append(" ; ");
+                  s.append(tasksByMachine[m][j] < 0 ? null : getTask(m, j)).append(" ; ");
               }
               s.append("\n");
           }
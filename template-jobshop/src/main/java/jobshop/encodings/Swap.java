@@ -0,0 +1,51 @@
+package jobshop.encodings;
+
+/**
+ * Represents a swap of two tasks on the same machine in a ResourceOrder encoding.
+ *
+ * Consider the solution in ResourceOrder representation
+ * machine 0 : (0,1) (1,2) (2,2)
+ * machine 1 : (0,2) (2,1) (1,1)
+ * machine 2 : ...
+ *
+ * The swam with : machine = 1, t1= 0 and t2 = 1
+ * Represent inversion of the two tasks : (0,2) and (2,1)
+ * Applying this swap on the above resource order should result in the following one :
+ * machine 0 : (0,1) (1,2) (2,2)
+ * machine 1 : (2,1) (0,2) (1,1)
+ * machine 2 : ...
+ */
+public final class Swap {
+    // machine on which to perform the swap
+    public final int machine;
+    // index of one task to be swapped
+    public final int t1;
+    // index of the other task to be swapped
+    public final int t2;
+
+    public Swap(int machine, int t1, int t2) {
+        this.machine = machine;
+        this.t1 = t1;
+        this.t2 = t2;
+    }
+
+    /** Apply this swap on the given resource order, transforming it into a new solution. */
+    public void applyOn(ResourceOrder order) {
+        order.swap(this.machine, this.t1, this.t2);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Swap swap = (Swap) o;
+        return machine == swap.machine &&
+                t1 == swap.t1 &&
+                t2 == swap.t2;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * machine + t1) + t2;
+    }
+}
@@ -1,10 +1,11 @@
 package jobshop.encodings;
 
-import java.util.Objects;
-
 /** Represents a task (job,task) of an jobshop problem.
  *
  * Example : (2, 3) repesents the fourth task of the third job. (remeber that we tart counting at 0)
+ *
+ * Encodings and solvers identify tasks by their operation id (see Instance.op(job, task)), this class is only
+ * a readable view of a task, for instance in the result of Schedule.criticalPath().
  * */
 public final class Task {
 
@@ -31,7 +32,7 @@ public final class Task {
 
     @Override
     public int hashCode() {
-        return Objects.hash(job, task);
+        return 31 * job + task;
     }
 
     @Override
@@ -0,0 +1,531 @@
+package jobshop.propagation;
+
+import jobshop.Instance;
+
+import java.util.Arrays;
+
+/**
+ * Constraint propagation over the disjunctive machines of an instance, for the solutions whose makespan does not
+ * exceed a horizon.
+ *
+ * Each task has a time window [head, horizon - tail] in which it must run : its head is a lower bound of its start
+ * time and its tail a lower bound of the time between its end and the end of the schedule. Some pairs of tasks of the
+ * same machine can be ordered (fixed arcs), either by the user of the propagator (addPrecedence) or by deduction.
+ * propagate() tightens the windows and fixes arcs until a fixpoint is reached, with the rules :
+ *  - precedences : along the job arcs and the fixed arcs, head(b) >= head(a) + p(a) and tail(a) >= p(b) + tail(b)
+ *  - immediate selection : a pair of tasks that cannot be ordered one way in the windows is ordered the other way
+ *  - edge-finding : a task that cannot run before, or among, a set of tasks of its machine runs after all of them
+ *  - not-first / not-last : a task that cannot run before all the tasks of a set starts after one of them ends
+ * The rules on tails are those on heads applied to the reversed problem, where heads and tails are exchanged.
+ * Only the machines with a task whose window changed are propagated again.
+ *
+ * Changes are recorded on a trail, so that the state saved by save() can be restored cheaply by restore() when
+ * backtracking. Tightening the horizon is not recorded : it is meant to be used when a better solution is found, the
+ * new horizon then holds for the whole search.
+ *
+ * When propagation fails (a window becomes too small for its task, or two tasks must precede each other), the tasks
+ * cannot be scheduled within the horizon : the state is then inconsistent and must be restored before any other use.
+ * A propagator is not thread-safe, copy() gives an independent one for another thread.
+ */
+public final class DisjunctivePropagator {
+
+    public final Instance instance;
+
+    /** tasks of each machine, and index of each task among those of its machine */
+    private final int[][] machineOps;
+    private final int[] indexOnMachine;
+    /** number of longs of the bit sets of fixed arcs of a task */
+    private final int words;
+
+    private int horizon;
+    private final int[] heads;
+    private final int[] tails;
+    /** after[op * words + w] : bits of the tasks of the machine of op that op precedes. before : that precede op */
+    private final long[] after;
+    private final long[] before;
+
+    /** positions of the changed values (see record, -1 for the marks of save) and their previous values */
+    private int[] trailPositions = new int[256];
+    private long[] trailValues = new long[256];
+    private int trailSize = 0;
+
+    /** tasks whose head (resp. tail) changed and must be propagated along their arcs, in circular queues */
+    private final int[] headQueue;
+    private final int[] tailQueue;
+    private final boolean[] inHeadQueue;
+    private final boolean[] inTailQueue;
+    private int headFirst = 0, headSize = 0, tailFirst = 0, tailSize = 0;
+    /** machines whose rules must be applied again */
+    private final boolean[] dirty;
+    private boolean failed = false;
+
+    /** work arrays of the machine rules, indexed by position among the tasks of the machine */
+    private final int[] keys;
+    private final int[] sorted;
+    private final int[] values;
+    private final int[] bounds;
+    private final int[] setTails;
+    private final int[] setDurations;
+
+    /** Propagator of the instance without fixed arcs, whose heads and tails are those given by the jobs. */
+    public DisjunctivePropagator(Instance instance, int horizon) {
+        this.instance = instance;
+        int numOps = instance.numOps;
+        int[] count = new int[instance.numMachines];
+        for(int op = 0 ; op < numOps ; op++)
+            count[instance.machine(op)]++;
+        machineOps = new int[instance.numMachines][];
+        int largest = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            machineOps[m] = new int[count[m]];
+            largest = Math.max(largest, count[m]);
+        }
+        indexOnMachine = new int[numOps];
+        Arrays.fill(count, 0);
+        for(int op = 0 ; op < numOps ; op++) {
+            int m = instance.machine(op);
+            indexOnMachine[op] = count[m];
+            machineOps[m][count[m]++] = op;
+        }
+        words = Math.max(1, (largest + 63) / 64);
+
+        this.horizon = horizon;
+        heads = new int[numOps];
+        tails = new int[numOps];
+        for(int job = 0 ; job < instance.numJobs ; job++) {
+            for(int task = 0 ; task < instance.numTasks ; task++) {
+                int op = instance.op(job, task);
+                heads[op] = instance.remainingDuration(job, 0) - instance.remainingDuration(job, task);
+                tails[op] = instance.remainingDuration(job, task + 1);
+                if(heads[op] + instance.duration(op) + tails[op] > horizon)
+                    failed = true;
+            }
+        }
+        after = new long[numOps * words];
+        before = new long[numOps * words];
+
+        headQueue = new int[numOps];
+        tailQueue = new int[numOps];
+        inHeadQueue = new boolean[numOps];
+        inTailQueue = new boolean[numOps];
+        dirty = new boolean[instance.numMachines];
+        Arrays.fill(dirty, true);
+
+        keys = new int[largest];
+        sorted = new int[largest];
+        values = new int[largest];
+        bounds = new int[largest];
+        setTails = new int[largest];
+        setDurations = new int[largest];
+    }
+
+    /** Copy of the current state, with an empty trail. */
+    private DisjunctivePropagator(DisjunctivePropagator other) {
+        instance = other.instance;
+        machineOps = other.machineOps;
+        indexOnMachine = other.indexOnMachine;
+        words = other.words;
+        horizon = other.horizon;
+        heads = other.heads.clone();
+        tails = other.tails.clone();
+        after = other.after.clone();
+        before = other.before.clone();
+        headQueue = other.headQueue.clone();
+        tailQueue = other.tailQueue.clone();
+        inHeadQueue = other.inHeadQueue.clone();
+        inTailQueue = other.inTailQueue.clone();
+        headFirst = other.headFirst;
+        headSize = other.headSize;
+        tailFirst = other.tailFirst;
+        tailSize = other.tailSize;
+        dirty = other.dirty.clone();
+        failed = other.failed;
+        int largest = other.sorted.length;
+        keys = new int[largest];
+        sorted = new int[largest];
+        values = new int[largest];
+        bounds = new int[largest];
+        setTails = new int[largest];
+        setDurations = new int[largest];
+    }
+
+    public DisjunctivePropagator copy() {
+        return new DisjunctivePropagator(this);
+    }
+
+    public int horizon() {
+        return horizon;
+    }
+
+    /** Restricts the windows to a smaller horizon. Returns false if a window becomes too small for its task. */
+    public boolean setHorizon(int horizon) {
+        if(horizon >= this.horizon)
+            return !failed;
+        this.horizon = horizon;
+        for(int op = 0 ; op < instance.numOps ; op++) {
+            if(heads[op] + instance.duration(op) + tails[op] > horizon)
+                failed = true;
+        }
+        Arrays.fill(dirty, true);
+        return !failed;
+    }
+
+    /** Earliest start time of the task. */
+    public int head(int op) {
+        return heads[op];
+    }
+
+    /** Smallest time between the end of the task and the end of the schedule. */
+    public int tail(int op) {
+        return tails[op];
+    }
+
+    /** Latest end time of the task within the horizon. */
+    public int latestEnd(int op) {
+        return horizon - tails[op];
+    }
+
+    /** Largest head plus duration plus tail of a task : a lower bound of the makespan of the solutions. */
+    public int lowerBound() {
+        int bound = 0;
+        for(int op = 0 ; op < instance.numOps ; op++)
+            bound = Math.max(bound, heads[op] + instance.duration(op) + tails[op]);
+        return bound;
+    }
+
+    /** True if the arc from a task to another of the same machine is fixed. */
+    public boolean precedes(int from, int to) {
+        int i = indexOnMachine[to];
+        return (after[from * words + (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    /**
+     * Fixes the arc from a task to another of the same machine. The windows of the other tasks are only updated by
+     * propagate(). Returns false if the opposite arc is fixed or if the windows of the two tasks become too small.
+     */
+    public boolean addPrecedence(int from, int to) {
+        if(instance.machine(from) != instance.machine(to) || from == to)
+            throw new IllegalArgumentException("Tasks " + from + " and " + to + " are not two tasks of the same machine");
+        fix(from, to);
+        return !failed;
+    }
+
+    /** Current position in the trail, to be given to restore. */
+    public int save() {
+        // restoring a propagated state does not need to propagate it again, unless the horizon changed meanwhile
+        record(-1, propagated() ? horizon : -1);
+        return trailSize - 1;
+    }
+
+    /** Undoes all the changes made since the given call to save(), apart from the horizon. */
+    public void restore(int mark) {
+        int numOps = instance.numOps;
+        boolean propagated = false;
+        while(trailSize > mark) {
+            trailSize--;
+            int position = trailPositions[trailSize];
+            long value = trailValues[trailSize];
+            if(position < 0)
+                propagated = value == horizon;
+            else if(position < numOps)
+                heads[position] = (int) value;
+            else if(position < 2 * numOps)
+                tails[position - numOps] = (int) value;
+            else if(position < 2 * numOps + after.length)
+                after[position - 2 * numOps] = value;
+            else
+                before[position - 2 * numOps - after.length] = value;
+        }
+        while(headSize > 0) {
+            inHeadQueue[headQueue[headFirst]] = false;
+            headFirst = (headFirst + 1) % headQueue.length;
+            headSize--;
+        }
+        while(tailSize > 0) {
+            inTailQueue[tailQueue[tailFirst]] = false;
+            tailFirst = (tailFirst + 1) % tailQueue.length;
+            tailSize--;
+        }
+        Arrays.fill(dirty, !propagated);
+        failed = false;
+    }
+
+    /** True if no rule can change the state. */
+    private boolean propagated() {
+        if(failed || headSize > 0 || tailSize > 0)
+            return false;
+        for(boolean d : dirty) {
+            if(d)
+                return false;
+        }
+        return true;
+    }
+
+    /** Applies all the rules until no window changes. Returns false if the tasks cannot fit in the horizon. */
+    public boolean propagate() {
+        if(!propagatePrecedences())
+            return false;
+        boolean pending = true;
+        while(pending) {
+            pending = false;
+            for(int m = 0 ; m < machineOps.length ; m++) {
+                if(!dirty[m])
+                    continue;
+                dirty[m] = false;
+                pending = true;
+                if(!immediateSelections(machineOps[m]) || !propagatePrecedences())
+                    return false;
+                if(!edgeFinding(machineOps[m], true) || !edgeFinding(machineOps[m], false) || !propagatePrecedences())
+                    return false;
+                if(!notFirst(machineOps[m], true) || !notFirst(machineOps[m], false) || !propagatePrecedences())
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /** Records the value at the given position of the state before changing it. */
+    private void record(int position, long value) {
+        if(trailSize == trailPositions.length) {
+            trailPositions = Arrays.copyOf(trailPositions, 2 * trailSize);
+            trailValues = Arrays.copyOf(trailValues, 2 * trailSize);
+        }
+        trailPositions[trailSize] = position;
+        trailValues[trailSize] = value;
+        trailSize++;
+    }
+
+    private void raiseHead(int op, int head) {
+        if(head <= heads[op])
+            return;
+        record(op, heads[op]);
+        heads[op] = head;
+        if(head + instance.duration(op) + tails[op] > horizon)
+            failed = true;
+        if(!inHeadQueue[op]) {
+            inHeadQueue[op] = true;
+            headQueue[(headFirst + headSize++) % headQueue.length] = op;
+        }
+        dirty[instance.machine(op)] = true;
+    }
+
+    private void raiseTail(int op, int tail) {
+        if(tail <= tails[op])
+            return;
+        record(instance.numOps + op, tails[op]);
+        tails[op] = tail;
+        if(heads[op] + instance.duration(op) + tail > horizon)
+            failed = true;
+        if(!inTailQueue[op]) {
+            inTailQueue[op] = true;
+            tailQueue[(tailFirst + tailSize++) % tailQueue.length] = op;
+        }
+        dirty[instance.machine(op)] = true;
+    }
+
+    private void fix(int from, int to) {
+        if(precedes(from, to))
+            return;
+        if(precedes(to, from)) {
+            failed = true;
+            return;
+        }
+        int numOps = instance.numOps;
+        int word = from * words + (indexOnMachine[to] >>> 6);
+        record(2 * numOps + word, after[word]);
+        after[word] |= 1L << indexOnMachine[to];
+        word = to * words + (indexOnMachine[from] >>> 6);
+        record(2 * numOps + after.length + word, before[word]);
+        before[word] |= 1L << indexOnMachine[from];
+        raiseHead(to, heads[from] + instance.duration(from));
+        raiseTail(from, instance.duration(to) + tails[to]);
+        dirty[instance.machine(from)] = true;
+    }
+
+    /** Propagates the queued changes of heads and tails along the job arcs and the fixed arcs. */
+    private boolean propagatePrecedences() {
+        while(!failed && (headSize > 0 || tailSize > 0)) {
+            if(headSize > 0) {
+                int op = headQueue[headFirst];
+                headFirst = (headFirst + 1) % headQueue.length;
+                headSize--;
+                inHeadQueue[op] = false;
+                int end = heads[op] + instance.duration(op);
+                if(instance.taskOf(op) < instance.numTasks - 1)
+                    raiseHead(op + 1, end);
+                int[] ops = machineOps[instance.machine(op)];
+                for(int w = 0 ; w < words ; w++) {
+                    for(long bits = after[op * words + w] ; bits != 0 ; bits &= bits - 1)
+                        raiseHead(ops[64 * w + Long.numberOfTrailingZeros(bits)], end);
+                }
+            } else {
+                int op = tailQueue[tailFirst];
+                tailFirst = (tailFirst + 1) % tailQueue.length;
+                tailSize--;
+                inTailQueue[op] = false;
+                int tail = instance.duration(op) + tails[op];
+                if(instance.taskOf(op) > 0)
+                    raiseTail(op - 1, tail);
+                int[] ops = machineOps[instance.machine(op)];
+                for(int w = 0 ; w < words ; w++) {
+                    for(long bits = before[op * words + w] ; bits != 0 ; bits &= bits - 1)
+                        raiseTail(ops[64 * w + Long.numberOfTrailingZeros(bits)], tail);
+                }
+            }
+        }
+        return !failed;
+    }
+
+    /** Orders the pairs of tasks of a machine that can only run one way within their windows. */
+    private boolean immediateSelections(int[] ops) {
+        for(int a = 0 ; a < ops.length ; a++) {
+            for(int b = a + 1 ; b < ops.length ; b++) {
+                int i = ops[a];
+                int j = ops[b];
+                if(precedes(i, j) || precedes(j, i))
+                    continue;
+                int both = instance.duration(i) + instance.duration(j);
+                boolean iFirst = heads[i] + both + tails[j] <= horizon;
+                boolean jFirst = heads[j] + both + tails[i] <= horizon;
+                if(!iFirst)
+                    fix(j, i);
+                else if(!jFirst)
+                    fix(i, j);
+                if(failed)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Edge-finding on the heads of the tasks of a machine (on their tails if forward is false), with the O(n^2)
+     * algorithm of Baptiste and Le Pape. For each task k, the set of the tasks whose deadline (horizon - tail) is not
+     * after the one of k is considered : it fails if the tasks of the set with a head after some time cannot be
+     * scheduled between this time and the deadline of k. A task i outside of the set must run after a subset of it
+     * if it cannot be scheduled before the deadline of k together with the tasks of the subset, its head is then
+     * raised to the earliest completion time of the subset.
+     */
+    private boolean edgeFinding(int[] ops, boolean forward) {
+        int[] r = forward ? heads : tails;
+        int[] q = forward ? tails : heads;
+        int n = ops.length;
+        for(int a = 0 ; a < n ; a++) {
+            keys[a] = r[ops[a]];
+            bounds[a] = keys[a];
+        }
+        sort(n, true);
+
+        for(int k : ops) {
+            int deadline = horizon - q[k];
+            // values[x] : earliest completion of the tasks of the set placed after x in sorted order (x included)
+            int work = 0;
+            int completion = Integer.MIN_VALUE;
+            for(int x = n - 1 ; x >= 0 ; x--) {
+                int i = ops[sorted[x]];
+                if(q[i] >= q[k]) {
+                    work += instance.duration(i);
+                    completion = Math.max(completion, r[i] + work);
+                    if(completion > deadline) {
+                        failed = true;
+                        return false;
+                    }
+                }
+                values[x] = completion;
+            }
+            // work is now the total duration of the set, it is decreased as its tasks are passed
+            int densest = Integer.MIN_VALUE;
+            int densestCompletion = Integer.MIN_VALUE;
+            for(int x = 0 ; x < n ; x++) {
+                int i = ops[sorted[x]];
+                int p = instance.duration(i);
+                if(q[i] >= q[k]) {
+                    if(r[i] + work > densest) {
+                        densest = r[i] + work;
+                        densestCompletion = values[x];
+                    }
+                    work -= p;
+                } else {
+                    // subset of the tasks after i, or densest subset starting before i
+                    if(r[i] + work + p > deadline)
+                        bounds[sorted[x]] = Math.max(bounds[sorted[x]], values[x]);
+                    if(densest != Integer.MIN_VALUE && densest + p > deadline)
+                        bounds[sorted[x]] = Math.max(bounds[sorted[x]], densestCompletion);
+                }
+            }
+        }
+        for(int a = 0 ; a < n ; a++)
+            raise(ops[a], bounds[a], forward);
+        return !failed;
+    }
+
+    /**
+     * Not-first rule on the heads of the tasks of a machine (not-last on their tails if forward is false) : a task i
+     * cannot run before all the tasks of a set if head(i) + p(i) + p(set) + smallest tail of the set exceeds the
+     * horizon, and its head is then raised to the smallest earliest completion time of the set. For each task, the
+     * sets of the tasks with an earliest completion time above some value are examined, the largest value first.
+     */
+    private boolean notFirst(int[] ops, boolean forward) {
+        int[] r = forward ? heads : tails;
+        int[] q = forward ? tails : heads;
+        int n = ops.length;
+        for(int a = 0 ; a < n ; a++) {
+            keys[a] = r[ops[a]] + instance.duration(ops[a]);
+            bounds[a] = r[ops[a]];
+        }
+        sort(n, false);
+
+        for(int a = 0 ; a < n ; a++) {
+            int limit = horizon - keys[a];
+            // values[s] : p(subset) + smallest tail of the subset of the tasks of the set with a tail not below setTails[s]
+            int size = 0;
+            int largest = Integer.MIN_VALUE;
+            for(int x = 0 ; x < n ; x++) {
+                if(sorted[x] == a)
+                    continue;
+                int j = ops[sorted[x]];
+                int p = instance.duration(j);
+                int value = q[j] + p;
+                for(int s = 0 ; s < size ; s++) {
+                    if(setTails[s] >= q[j])
+                        value += setDurations[s];
+                    if(setTails[s] <= q[j]) {
+                        values[s] += p;
+                        largest = Math.max(largest, values[s]);
+                    }
+                }
+                setTails[size] = q[j];
+                setDurations[size] = p;
+                values[size] = value;
+                size++;
+                largest = Math.max(largest, value);
+                if(largest > limit) {
+                    bounds[a] = Math.max(bounds[a], keys[sorted[x]]);
+                    break;
+                }
+            }
+        }
+        for(int a = 0 ; a < n ; a++)
+            raise(ops[a], bounds[a], forward);
+        return !failed;
+    }
+
+    private void raise(int op, int value, boolean forward) {
+        if(forward)
+            raiseHead(op, value);
+        else
+            raiseTail(op, value);
+    }
+
+    /** Sorts the positions 0..n-1 into `sorted` by increasing (or decreasing) keys. Machines have few tasks. */
+    private void sort(int n, boolean increasing) {
+        for(int a = 0 ; a < n ; a++) {
+            int b = a;
+            while(b > 0 && (increasing ? keys[sorted[b - 1]] > keys[a] : keys[sorted[b - 1]] < keys[a])) {
+                sorted[b] = sorted[b - 1];
+                b--;
+            }
+            sorted[b] = a;
+        }
+    }
+}
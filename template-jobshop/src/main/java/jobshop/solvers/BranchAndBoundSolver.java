@@ -0,0 +1,423 @@
+package jobshop.solvers;
+
+import jobshop.IncumbentListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.SolverStats;
+import jobshop.TimeBudget;
+import jobshop.encodings.Block;
+import jobshop.encodings.ResourceOrder;
+import jobshop.propagation.DisjunctivePropagator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exact branch and bound on the disjunctive graph, after Brucker, Jurisch and Sievers (1994).
+ *
+ * A node is a set of fixed disjunctive arcs, each of them ordering two tasks of the same machine. At each node :
+ *  - the windows of the tasks are propagated (see DisjunctivePropagator) with the best makespan found so far minus
+ *    one as horizon, which fixes the arcs implied by the others. The node is pruned if propagation fails
+ *  - a solution compatible with the fixed arcs is built by list scheduling, and may improve the best makespan
+ *  - children are created from the critical blocks of this solution : a strictly better solution must schedule a
+ *    task of some block before the first task of the block, or after its last one. Each child fixes such a move and
+ *    keeps the first and last tasks of the blocks of the previous children, so that children never overlap.
+ *    They are explored by increasing lower bound, the best of the longest path through the propagated heads and
+ *    tails and of the preemptive one-machine bounds.
+ *
+ * The initial upper bound is the solution of a heuristic solver (TSAB by default), run for at most a tenth of the
+ * available time and stopped earlier if it stagnates.
+ * Children are explored in parallel on a ForkJoinPool, whose idle workers steal the pending children of the others.
+ * With a single worker, the tree is explored on the calling thread.
+ * A worker explores its children depth first on a single propagator, undoing the arcs of a child through its trail.
+ * When the whole tree is explored before the deadline, the best solution is optimal (ProvedOptimal).
+ */
+public class BranchAndBoundSolver implements Solver {
+
+    private final int numWorkers;
+    /** solver giving the initial upper bound */
+    private final Solver initialSolver;
+
+    /** Creates a solver exploring the tree on all available processors. */
+    public BranchAndBoundSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BranchAndBoundSolver(int numWorkers) {
+        this(numWorkers, new TSABSolver());
+    }
+
+    public BranchAndBoundSolver(int numWorkers, Solver initialSolver) {
+        if(numWorkers < 1)
+            throw new IllegalArgumentException("At least one worker is needed, got " + numWorkers);
+        this.numWorkers = numWorkers;
+        this.initialSolver = initialSolver;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, IncumbentListener.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, IncumbentListener listener) {
+        SolverStats stats = new SolverStats();
+        long start = System.currentTimeMillis();
+        long initialDeadline = start + (deadline - start) / 10;
+        IncumbentListener stagnation = TimeBudget.stagnation(start, initialDeadline);
+        Result initial = initialSolver.solve(instance, initialDeadline, new IncumbentListener() {
+            @Override
+            public void onIncumbent(Schedule schedule, int makespan, long timestamp) {
+                stagnation.onIncumbent(schedule, makespan, timestamp);
+                listener.onIncumbent(schedule, makespan, timestamp);
+            }
+
+            @Override
+            public boolean stopRequested() {
+                return stagnation.stopRequested() || listener.stopRequested();
+            }
+        });
+        stats.merge(initial.stats);
+        if(initial.cause == Result.ExitCause.ProvedOptimal || listener.stopRequested()) {
+            Result.ExitCause cause = initial.cause == Result.ExitCause.ProvedOptimal ? initial.cause : Result.ExitCause.Cancelled;
+            return new Result(instance, initial.schedule, cause, stats.stop());
+        }
+
+        Search search = new Search(instance, deadline, listener, stats, new ResourceOrder(initial.schedule));
+        DisjunctivePropagator root = new DisjunctivePropagator(instance, search.upperBound.get() - 1);
+        if(root.propagate()) {
+            if(numWorkers == 1) {
+                // outside of a pool, nothing is forked : the tree is explored depth first on the calling thread
+                search.new Explore(root).invoke();
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(numWorkers);
+                try {
+                    pool.invoke(search.new Explore(root));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+        stats.evaluated(search.nodes.sum());
+
+        Result.ExitCause cause = Result.ExitCause.ProvedOptimal;
+        if(search.interrupted)
+            cause = listener.stopRequested() ? Result.ExitCause.Cancelled : Result.ExitCause.Timeout;
+        return new Result(instance, search.best.toSchedule(), cause, stats.stop());
+    }
+
+    /** Arcs fixed by a child, as pairs (from, to), and its lower bound. */
+    private static final class Child {
+        final int[] arcs;
+        final int lowerBound;
+
+        Child(int[] arcs, int lowerBound) {
+            this.arcs = arcs;
+            this.lowerBound = lowerBound;
+        }
+    }
+
+    /** State of a search, shared by all workers. */
+    private static final class Search {
+        final Instance instance;
+        final long deadline;
+        final IncumbentListener listener;
+        final SolverStats stats;
+
+        /** tasks of each machine */
+        final int[][] machineOps;
+
+        /** makespan of the best solution found so far */
+        final AtomicInteger upperBound;
+        /** best solution found so far, only updated while holding the lock of the search */
+        volatile ResourceOrder best;
+        final LongAdder nodes = new LongAdder();
+        /** true if the exploration was stopped before the end : the best solution is then not proved optimal */
+        volatile boolean interrupted = false;
+
+        Search(Instance instance, long deadline, IncumbentListener listener, SolverStats stats, ResourceOrder initial) {
+            this.instance = instance;
+            this.deadline = deadline;
+            this.listener = listener;
+            this.stats = stats;
+            this.best = initial;
+            this.upperBound = new AtomicInteger(initial.makespan());
+
+            int[] count = new int[instance.numMachines];
+            for(int op = 0 ; op < instance.numOps ; op++)
+                count[instance.machine(op)]++;
+            machineOps = new int[instance.numMachines][];
+            for(int m = 0 ; m < instance.numMachines ; m++)
+                machineOps[m] = new int[count[m]];
+            Arrays.fill(count, 0);
+            for(int op = 0 ; op < instance.numOps ; op++) {
+                int m = instance.machine(op);
+                machineOps[m][count[m]++] = op;
+            }
+        }
+
+        /**
+         * Exploration of the subtree of a node, whose children may be stolen by idle workers. The state of the node is
+         * owned by the task : its children explored by the same worker are reached by fixing their arcs on this state,
+         * and backtracking restores it, while forked children get a copy.
+         */
+        @SuppressWarnings("serial") // tasks are never serialized
+        final class Explore extends RecursiveAction {
+            private final DisjunctivePropagator state;
+
+            Explore(DisjunctivePropagator state) {
+                this.state = state;
+            }
+
+            @Override
+            protected void compute() {
+                explore();
+            }
+
+            /** Explores the node of the current state, which is propagated. */
+            private void explore() {
+                if(stopped())
+                    return;
+                nodes.increment();
+                if(!state.setHorizon(upperBound.get() - 1) || !state.propagate())
+                    return;
+
+                ResourceOrder solution = heuristicSolution(state);
+                if(solution == null)
+                    return;
+                int makespan = solution.makespan();
+                if(makespan < upperBound.get()) {
+                    improve(solution, makespan);
+                    if(!state.setHorizon(upperBound.get() - 1) || !state.propagate())
+                        return;
+                }
+
+                List<Explore> forked = new ArrayList<>();
+                for(Child child : children(state, solution)) {
+                    // a child is fixed and propagated before its exploration checks the deadline
+                    if(stopped())
+                        break;
+                    if(inForkJoinPool() && getSurplusQueuedTaskCount() < 2) {
+                        DisjunctivePropagator copy = state.copy();
+                        if(fix(copy, child.arcs)) {
+                            Explore task = new Explore(copy);
+                            task.fork();
+                            forked.add(task);
+                        }
+                    } else {
+                        int mark = state.save();
+                        if(fix(state, child.arcs))
+                            explore();
+                        state.restore(mark);
+                    }
+                }
+                for(Explore task : forked)
+                    task.join();
+            }
+        }
+
+        /** True if the exploration must stop : deadline passed or stop requested. Sets `interrupted` if so. */
+        private boolean stopped() {
+            if(!interrupted && (System.currentTimeMillis() >= deadline || listener.stopRequested()))
+                interrupted = true;
+            return interrupted;
+        }
+
+        private synchronized void improve(ResourceOrder solution, int makespan) {
+            if(makespan >= upperBound.get())
+                return;
+            best = solution;
+            upperBound.set(makespan);
+            stats.improved(nodes.sum(), makespan);
+            listener.onIncumbent(solution.toSchedule(), makespan, System.currentTimeMillis());
+        }
+
+        /** Fixes the arcs on the state and propagates them. Returns false if the state contains no better solution. */
+        private boolean fix(DisjunctivePropagator state, int[] arcs) {
+            for(int i = 0 ; i < arcs.length ; i += 2) {
+                if(!state.addPrecedence(arcs[i], arcs[i + 1]))
+                    return false;
+            }
+            return state.propagate();
+        }
+
+        /** Best of the longest path and of the preemptive one-machine bounds with the heads and tails of the state. */
+        int lowerBound(DisjunctivePropagator state) {
+            int lowerBound = state.lowerBound();
+            int[] h = new int[instance.numJobs];
+            int[] p = new int[instance.numJobs];
+            int[] q = new int[instance.numJobs];
+            for(int[] ops : machineOps) {
+                if(h.length < ops.length) {
+                    h = new int[ops.length];
+                    p = new int[ops.length];
+                    q = new int[ops.length];
+                }
+                for(int i = 0 ; i < ops.length ; i++) {
+                    h[i] = state.head(ops[i]);
+                    p[i] = instance.duration(ops[i]);
+                    q[i] = state.tail(ops[i]);
+                }
+                lowerBound = Math.max(lowerBound, LowerBound.preemptiveOneMachine(h, p, q, ops.length));
+            }
+            return lowerBound;
+        }
+
+        /**
+         * Solution compatible with the fixed arcs of the state, built by a Giffler and Thompson generator choosing the
+         * task with the largest tail in each conflict set. A task is schedulable once its job predecessor and the tasks
+         * that must precede it on its machine are scheduled. Returns null if the fixed arcs contain a cycle (of tasks
+         * without duration, the others are detected by propagation).
+         */
+        ResourceOrder heuristicSolution(DisjunctivePropagator state) {
+            int numJobs = instance.numJobs;
+            int[] predecessors = new int[instance.numOps];
+            for(int[] ops : machineOps) {
+                for(int from : ops) {
+                    for(int to : ops) {
+                        if(from != to && state.precedes(from, to))
+                            predecessors[to]++;
+                    }
+                }
+            }
+            int[] next = new int[numJobs];
+            int[] jobRelease = new int[numJobs];
+            int[] machineRelease = new int[instance.numMachines];
+            ResourceOrder order = new ResourceOrder(instance);
+
+            for(int step = 0 ; step < instance.numOps ; step++) {
+                // earliest completion time among the schedulable tasks
+                int first = -1;
+                int bound = Integer.MAX_VALUE;
+                for(int j = 0 ; j < numJobs ; j++) {
+                    if(next[j] == instance.numTasks)
+                        continue;
+                    int op = instance.op(j, next[j]);
+                    if(predecessors[op] > 0)
+                        continue;
+                    int end = Math.max(jobRelease[j], machineRelease[instance.machine(op)]) + instance.duration(op);
+                    if(end < bound) {
+                        bound = end;
+                        first = op;
+                    }
+                }
+                if(first == -1)
+                    return null;
+                // conflict set : schedulable tasks of the same machine that can start before this completion time
+                int machine = instance.machine(first);
+                int chosen = first;
+                for(int j = 0 ; j < numJobs ; j++) {
+                    if(next[j] == instance.numTasks)
+                        continue;
+                    int op = instance.op(j, next[j]);
+                    if(op == first || predecessors[op] > 0 || instance.machine(op) != machine)
+                        continue;
+                    if(Math.max(jobRelease[j], machineRelease[machine]) < bound && state.tail(op) > state.tail(chosen))
+                        chosen = op;
+                }
+
+                int job = instance.jobOf(chosen);
+                int end = Math.max(jobRelease[job], machineRelease[machine]) + instance.duration(chosen);
+                jobRelease[job] = end;
+                machineRelease[machine] = end;
+                next[job]++;
+                order.addTask(chosen);
+                for(int op : machineOps[machine]) {
+                    if(op != chosen && state.precedes(chosen, op))
+                        predecessors[op]--;
+                }
+            }
+            return order;
+        }
+
+        /**
+         * Children of the node of the state, from the critical blocks of the given solution of the node, by increasing
+         * lower bound. For each block, in the order of the critical path :
+         *  - for each task but the first, a child where the task precedes all the others of the block
+         *  - for each task but the first and the last, a child where the first task stays first and the task follows all
+         *    the others
+         * and the next blocks are handled with the first and last tasks of this block fixed. Children whose arcs cannot
+         * be fixed on the state are left out, which leaves it unchanged.
+         * Each child is propagated to get its lower bound : once the exploration must stop, the children built so far
+         * are returned.
+         */
+        List<Child> children(DisjunctivePropagator state, ResourceOrder solution) {
+            List<Child> children = new ArrayList<>();
+            int[] base = new int[0];
+            for(Block block : solution.criticalBlocks()) {
+                int[] ops = new int[block.lastTask - block.firstTask + 1];
+                for(int i = 0 ; i < ops.length ; i++)
+                    ops[i] = solution.taskAt(block.machine, block.firstTask + i);
+                int first = ops[0];
+                int last = ops[ops.length - 1];
+
+                for(int i = 1 ; i < ops.length ; i++) {
+                    int[] arcs = Arrays.copyOf(base, base.length + 2 * (ops.length - 1));
+                    int size = base.length;
+                    for(int other : ops) {
+                        if(other != ops[i]) {
+                            arcs[size++] = ops[i];
+                            arcs[size++] = other;
+                        }
+                    }
+                    if(stopped())
+                        return children;
+                    addChild(children, state, arcs);
+                }
+
+                int[] firstFixed = Arrays.copyOf(base, base.length + 2 * (ops.length - 1));
+                for(int i = 1 ; i < ops.length ; i++) {
+                    firstFixed[base.length + 2 * i - 2] = first;
+                    firstFixed[base.length + 2 * i - 1] = ops[i];
+                    if(state.precedes(ops[i], first))
+                        return sorted(children); // all the following children contain this arc
+                }
+                for(int i = 1 ; i < ops.length - 1 ; i++) {
+                    int[] arcs = Arrays.copyOf(firstFixed, firstFixed.length + 2 * (ops.length - 1));
+                    int size = firstFixed.length;
+                    for(int other : ops) {
+                        if(other != ops[i]) {
+                            arcs[size++] = other;
+                            arcs[size++] = ops[i];
+                        }
+                    }
+                    if(stopped())
+                        return children;
+                    addChild(children, state, arcs);
+                }
+
+                base = Arrays.copyOf(firstFixed, firstFixed.length + 2 * (ops.length - 1));
+                for(int i = 0 ; i < ops.length - 1 ; i++) {
+                    base[firstFixed.length + 2 * i] = ops[i];
+                    base[firstFixed.length + 2 * i + 1] = last;
+                    if(state.precedes(last, ops[i]))
+                        return sorted(children);
+                }
+            }
+            return sorted(children);
+        }
+
+        private List<Child> sorted(List<Child> children) {
+            children.sort((a, b) -> Integer.compare(a.lowerBound, b.lowerBound));
+            return children;
+        }
+
+        private void addChild(List<Child> children, DisjunctivePropagator state, int[] arcs) {
+            int mark = state.save();
+            if(fix(state, arcs)) {
+                int lowerBound = lowerBound(state);
+                if(lowerBound < upperBound.get())
+                    children.add(new Child(arcs, lowerBound));
+            }
+            state.restore(mark);
+        }
+    }
+}
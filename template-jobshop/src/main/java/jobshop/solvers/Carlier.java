@@ -0,0 +1,185 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/**
+ * Solver of the one-machine problem with heads and tails (1|r_j,q_j|Cmax) : n tasks with a release time (head), a
+ * duration and a delivery time after their completion (tail) are sequenced on one machine, minimizing the largest
+ * completion time plus tail.
+ *
+ * Schrage's rule builds a sequence in O(n log n) : whenever the machine is free, the released task with the largest
+ * tail runs. Carlier's branch and bound (1982) improves it : on the critical sequence of a Schrage schedule, the last
+ * task c with a smaller tail than the last task of the sequence is the only one that may be misplaced, and the tasks J
+ * after it are such that either c runs after all of them (its head is raised to r(J) + p(J)) or before all of them
+ * (its tail is raised to p(J) + q(J)). Nodes whose bound max(h(J), h(J + c)), with h(S) = r(S) + p(S) + q(S), is not
+ * smaller than the best makespan are pruned.
+ *
+ * The search stops after a given number of nodes, the sequence is then the best one found (the first node gives the
+ * Schrage sequence). A solver reuses its buffers from one call to the next, it must not be shared between threads.
+ */
+public final class Carlier {
+
+    // problem of the current call, whose heads and tails are modified (and restored) by the branching
+    private final int[] heads;
+    private final int[] durations;
+    private final int[] tails;
+    private int n;
+
+    // buffers of Schrage's rule
+    private final long[] byHead;
+    private final int[] heap;
+    private final int[] sequence;
+    private final int[] starts;
+
+    private final int[] best;
+    private int bestMakespan;
+    private int nodes;
+    private int nodeLimit;
+
+    /** Creates a solver for problems of at most `capacity` tasks. */
+    public Carlier(int capacity) {
+        heads = new int[capacity];
+        durations = new int[capacity];
+        tails = new int[capacity];
+        byHead = new long[capacity];
+        heap = new int[capacity];
+        sequence = new int[capacity];
+        starts = new int[capacity];
+        best = new int[capacity];
+    }
+
+    /**
+     * Sequences the first n tasks, exploring at most nodeLimit nodes (at least one). The sequence, as indices of the
+     * tasks, is written in `result` and its makespan is returned. The given arrays are left unchanged.
+     */
+    public int solve(int[] heads, int[] durations, int[] tails, int n, int nodeLimit, int[] result) {
+        if(n > this.heads.length)
+            throw new IllegalArgumentException("Problem of " + n + " tasks, at most " + this.heads.length + " expected");
+        System.arraycopy(heads, 0, this.heads, 0, n);
+        System.arraycopy(durations, 0, this.durations, 0, n);
+        System.arraycopy(tails, 0, this.tails, 0, n);
+        this.n = n;
+        this.nodeLimit = Math.max(1, nodeLimit);
+        this.nodes = 0;
+        this.bestMakespan = Integer.MAX_VALUE;
+        branch();
+        System.arraycopy(best, 0, result, 0, n);
+        return bestMakespan;
+    }
+
+    /** Number of nodes explored by the last call to solve. */
+    public int nodes() {
+        return nodes;
+    }
+
+    private void branch() {
+        nodes++;
+        int makespan = schrage();
+        if(makespan < bestMakespan) {
+            bestMakespan = makespan;
+            System.arraycopy(sequence, 0, best, 0, n);
+        }
+
+        // critical sequence a..b : b is the last task reaching the makespan, a starts the block without idle time
+        int b = n - 1;
+        while(starts[b] + durations[sequence[b]] + tails[sequence[b]] != makespan)
+            b--;
+        int a = b;
+        while(a > 0 && starts[a - 1] + durations[sequence[a - 1]] == starts[a])
+            a--;
+        int c = b - 1;
+        while(c >= a && tails[sequence[c]] >= tails[sequence[b]])
+            c--;
+        if(c < a)
+            return; // the Schrage schedule is optimal for this node
+        if(nodes >= nodeLimit)
+            return;
+
+        int headJ = Integer.MAX_VALUE;
+        int durationJ = 0;
+        int tailJ = Integer.MAX_VALUE;
+        for(int i = c + 1 ; i <= b ; i++) {
+            int task = sequence[i];
+            headJ = Math.min(headJ, heads[task]);
+            durationJ += durations[task];
+            tailJ = Math.min(tailJ, tails[task]);
+        }
+        int task = sequence[c];
+        int boundJ = headJ + durationJ + tailJ;
+
+        // c after J, then c before J, the child with the smallest bound first
+        int oldHead = heads[task];
+        int oldTail = tails[task];
+        int newHead = Math.max(oldHead, headJ + durationJ);
+        int newTail = Math.max(oldTail, durationJ + tailJ);
+        int afterBound = Math.max(boundJ, Math.min(headJ, newHead) + durationJ + durations[task] + Math.min(tailJ, oldTail));
+        int beforeBound = Math.max(boundJ, Math.min(headJ, oldHead) + durationJ + durations[task] + Math.min(tailJ, newTail));
+        for(int child = 0 ; child < 2 ; child++) {
+            boolean after = (child == 0) == (afterBound <= beforeBound);
+            if((after ? afterBound : beforeBound) >= bestMakespan || nodes >= nodeLimit)
+                continue;
+            if(after)
+                heads[task] = newHead;
+            else
+                tails[task] = newTail;
+            branch();
+            heads[task] = oldHead;
+            tails[task] = oldTail;
+        }
+    }
+
+    /** Schrage sequence of the current problem into sequence and starts. Returns its makespan. */
+    private int schrage() {
+        for(int i = 0 ; i < n ; i++)
+            byHead[i] = ((long) heads[i] << 32) | i;
+        Arrays.sort(byHead, 0, n);
+        int released = 0;
+        int size = 0;
+        int time = Integer.MIN_VALUE;
+        int makespan = Integer.MIN_VALUE;
+        for(int k = 0 ; k < n ; k++) {
+            if(size == 0)
+                time = Math.max(time, heads[(int) byHead[released]]);
+            while(released < n && heads[(int) byHead[released]] <= time)
+                size = push((int) byHead[released++], size);
+            int task = heap[0];
+            size = pop(size);
+            sequence[k] = task;
+            starts[k] = time;
+            time += durations[task];
+            makespan = Math.max(makespan, time + tails[task]);
+        }
+        return makespan;
+    }
+
+    /** True if task i has priority over task j in Schrage's rule : larger tail, then smaller index. */
+    private boolean before(int i, int j) {
+        return tails[i] > tails[j] || (tails[i] == tails[j] && i < j);
+    }
+
+    private int push(int task, int size) {
+        int i = size;
+        while(i > 0 && before(task, heap[(i - 1) / 2])) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = task;
+        return size + 1;
+    }
+
+    private int pop(int size) {
+        int last = heap[--size];
+        int i = 0;
+        while(2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if(child + 1 < size && before(heap[child + 1], heap[child]))
+                child++;
+            if(!before(heap[child], last))
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return size;
+    }
+}
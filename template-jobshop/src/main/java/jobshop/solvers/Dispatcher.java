@@ -0,0 +1,201 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.Arrays;
+
+/**
+ * Dispatching engine shared by the greedy solvers : tasks are scheduled one at a time, the next one being the
+ * schedulable task (first unscheduled task of its job) with the best priority.
+ *
+ * Since each job has at most one schedulable task, schedulable tasks are kept in an indexed binary heap of jobs.
+ * With the EST variants, the earliest start time of a task changes when a task is scheduled on its machine : the
+ * schedulable tasks of each machine are kept in a list so that only their keys are updated.
+ * Construction then runs in O(N log J) (plus the EST updates) instead of O(N * J).
+ *
+ * Ties are broken by the order in which tasks became schedulable, the first one being chosen.
+ */
+public final class Dispatcher {
+
+    /** Priority rule used to choose among schedulable tasks. */
+    public enum Rule {
+        /** shortest processing time of the task first */
+        SPT,
+        /** longest remaining processing time of the job (including the task) first */
+        LRPT
+    }
+
+    private Dispatcher() {}
+
+    /**
+     * Builds a resource order by dispatching tasks with the given rule.
+     * If `est` is true, tasks with the earliest start time are chosen first and the rule only breaks ties.
+     */
+    public static ResourceOrder dispatch(Instance instance, Rule rule, boolean est) {
+        ResourceOrder sol = new ResourceOrder(instance);
+        int[] estMachine = new int[instance.numMachines];
+        int[] estJob = new int[instance.numJobs];
+        // next task (operation id) of each job
+        int[] next = new int[instance.numJobs];
+
+        // for each machine, doubly linked list of the jobs whose next task executes on this machine (EST only)
+        int[] firstOnMachine = new int[instance.numMachines];
+        Arrays.fill(firstOnMachine, -1);
+        int[] nextOnMachine = new int[instance.numJobs];
+        int[] prevOnMachine = new int[instance.numJobs];
+
+        JobHeap heap = new JobHeap(instance.numJobs);
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            next[j] = instance.op(j, 0);
+            if(est)
+                link(j, instance.machine(next[j]), firstOnMachine, nextOnMachine, prevOnMachine);
+            heap.push(j, key(instance, rule, est, next[j], estJob, estMachine));
+        }
+
+        while(!heap.isEmpty()) {
+            int job = heap.pop();
+            int current = next[job];
+            int machine = instance.machine(current);
+            sol.addTask(current);
+
+            int end = Math.max(estJob[job], estMachine[machine]) + instance.duration(current);
+            estMachine[machine] = end;
+            estJob[job] = end;
+
+            if(est) {
+                unlink(job, machine, firstOnMachine, nextOnMachine, prevOnMachine);
+                // the machine is available later : the other tasks waiting for it can only start later
+                for(int j = firstOnMachine[machine] ; j >= 0 ; j = nextOnMachine[j])
+                    heap.update(j, key(instance, rule, est, next[j], estJob, estMachine));
+            }
+
+            if(instance.taskOf(current) + 1 < instance.numTasks) {
+                next[job] = current + 1;
+                if(est)
+                    link(job, instance.machine(current + 1), firstOnMachine, nextOnMachine, prevOnMachine);
+                heap.push(job, key(instance, rule, est, current + 1, estJob, estMachine));
+            }
+        }
+        return sol;
+    }
+
+    /** Priority of a schedulable task, the smallest key being the best. */
+    private static long key(Instance instance, Rule rule, boolean est, int op, int[] estJob, int[] estMachine) {
+        // non negative value, the smaller the better
+        int value = rule == Rule.SPT
+                ? instance.duration(op)
+                : Integer.MAX_VALUE - instance.remainingDuration(instance.jobOf(op), instance.taskOf(op));
+        if(!est)
+            return value;
+        int start = Math.max(estJob[instance.jobOf(op)], estMachine[instance.machine(op)]);
+        return ((long) start << 32) | value;
+    }
+
+    private static void link(int job, int machine, int[] first, int[] next, int[] prev) {
+        prev[job] = -1;
+        next[job] = first[machine];
+        if(first[machine] >= 0)
+            prev[first[machine]] = job;
+        first[machine] = job;
+    }
+
+    private static void unlink(int job, int machine, int[] first, int[] next, int[] prev) {
+        if(prev[job] >= 0)
+            next[prev[job]] = next[job];
+        else
+            first[machine] = next[job];
+        if(next[job] >= 0)
+            prev[next[job]] = prev[job];
+    }
+
+    /** Indexed binary min-heap of jobs, ordered by key then by insertion order. */
+    private static final class JobHeap {
+        private final int[] heap;
+        // position of each job in the heap, -1 if absent
+        private final int[] position;
+        private final long[] keys;
+        // insertion number of the current task of each job
+        private final long[] inserted;
+        private long numInserted = 0;
+        private int size = 0;
+
+        JobHeap(int numJobs) {
+            this.heap = new int[numJobs];
+            this.position = new int[numJobs];
+            Arrays.fill(position, -1);
+            this.keys = new long[numJobs];
+            this.inserted = new long[numJobs];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int job, long key) {
+            keys[job] = key;
+            inserted[job] = numInserted++;
+            heap[size] = job;
+            position[job] = size;
+            size++;
+            siftUp(size - 1);
+        }
+
+        int pop() {
+            int top = heap[0];
+            position[top] = -1;
+            size--;
+            if(size > 0) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        void update(int job, long key) {
+            long old = keys[job];
+            keys[job] = key;
+            if(key < old)
+                siftUp(position[job]);
+            else if(key > old)
+                siftDown(position[job]);
+        }
+
+        private boolean less(int a, int b) {
+            return keys[a] < keys[b] || (keys[a] == keys[b] && inserted[a] < inserted[b]);
+        }
+
+        private void siftUp(int i) {
+            int job = heap[i];
+            while(i > 0) {
+                int parent = (i - 1) / 2;
+                if(!less(job, heap[parent]))
+                    break;
+                heap[i] = heap[parent];
+                position[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = job;
+            position[job] = i;
+        }
+
+        private void siftDown(int i) {
+            int job = heap[i];
+            while(true) {
+                int child = 2 * i + 1;
+                if(child >= size)
+                    break;
+                if(child + 1 < size && less(heap[child + 1], heap[child]))
+                    child++;
+                if(!less(heap[child], job))
+                    break;
+                heap[i] = heap[child];
+                position[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = job;
+            position[job] = i;
+        }
+    }
+}
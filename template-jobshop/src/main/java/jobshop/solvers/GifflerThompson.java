@@ -0,0 +1,147 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.Random;
+
+/**
+ * Giffler and Thompson generator of active (or non-delay) schedules, built into a ResourceOrder.
+ *
+ * At each step, among the schedulable tasks (first unscheduled task of each job) :
+ *  - ACTIVE : the task with the earliest completion time C* is found, and the conflict set contains the schedulable
+ *    tasks of its machine that can start before C*
+ *  - NON_DELAY : the earliest start time S* is found, and the conflict set contains the schedulable tasks of the
+ *    machine of the first such task that can start at S*
+ * A task of the conflict set is chosen with the priority rule and scheduled as early as possible.
+ *
+ * In randomized (GRASP) mode, the task is drawn uniformly among the `candidates` best tasks of the conflict set.
+ * A generator reuses its buffers from one call to the next, it must not be shared between threads.
+ */
+public final class GifflerThompson {
+
+    public enum Mode { ACTIVE, NON_DELAY }
+
+    private final Instance instance;
+    private final Mode mode;
+    private final PriorityRule rule;
+
+    // generator of the deterministic mode, only used by randomized rules
+    private final Random defaultRandom = new Random(0);
+
+    // buffers
+    private final int[] next;
+    private final int[] jobRelease;
+    private final int[] machineRelease;
+    private final int[] conflict;
+    private final double[] values;
+
+    public GifflerThompson(Instance instance, Mode mode, PriorityRule rule) {
+        this.instance = instance;
+        this.mode = mode;
+        this.rule = rule;
+        this.next = new int[instance.numJobs];
+        this.jobRelease = new int[instance.numJobs];
+        this.machineRelease = new int[instance.numMachines];
+        this.conflict = new int[instance.numJobs];
+        this.values = new double[instance.numJobs];
+    }
+
+    /**
+     * Best schedule generated by the deterministic rules (SPT, LRPT, MWKR, FIFO) in both modes.
+     * Cheap compared to a local search, it is used as its starting point.
+     */
+    static ResourceOrder bestOfRules(Instance instance) {
+        ResourceOrder best = null;
+        for(Mode mode : Mode.values()) {
+            for(PriorityRule rule : new PriorityRule[] { PriorityRule.SPT, PriorityRule.LRPT, PriorityRule.MWKR, PriorityRule.FIFO }) {
+                ResourceOrder order = new GifflerThompson(instance, mode, rule).generate();
+                if(best == null || order.makespan() < best.makespan())
+                    best = order;
+            }
+        }
+        return best;
+    }
+
+    /** Generates a schedule, choosing the best task of each conflict set (ties broken by the smallest job). */
+    public ResourceOrder generate() {
+        return generate(defaultRandom, 1);
+    }
+
+    /** Generates a schedule, choosing each task uniformly among the `candidates` best tasks of its conflict set. */
+    public ResourceOrder generate(Random random, int candidates) {
+        if(candidates < 1)
+            throw new IllegalArgumentException("At least one candidate is needed, got " + candidates);
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            next[j] = 0;
+            jobRelease[j] = 0;
+        }
+        for(int m = 0 ; m < instance.numMachines ; m++)
+            machineRelease[m] = 0;
+
+        for(int step = 0 ; step < instance.numOps ; step++) {
+            // machine and bound (C* or S*) defining the conflict set
+            int machine = -1;
+            int bound = Integer.MAX_VALUE;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(next[j] == instance.numTasks)
+                    continue;
+                int op = instance.op(j, next[j]);
+                int start = Math.max(jobRelease[j], machineRelease[instance.machine(op)]);
+                int time = mode == Mode.ACTIVE ? start + instance.duration(op) : start;
+                if(time < bound) {
+                    bound = time;
+                    machine = instance.machine(op);
+                }
+            }
+
+            int size = 0;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(next[j] == instance.numTasks)
+                    continue;
+                int op = instance.op(j, next[j]);
+                if(instance.machine(op) != machine)
+                    continue;
+                int start = Math.max(jobRelease[j], machineRelease[machine]);
+                if(mode == Mode.ACTIVE ? start < bound : start == bound) {
+                    conflict[size] = j;
+                    values[size] = rule.value(instance, op, jobRelease[j], random);
+                    size++;
+                }
+            }
+
+            int chosen = select(size, random, candidates);
+            int op = instance.op(chosen, next[chosen]);
+            int end = Math.max(jobRelease[chosen], machineRelease[machine]) + instance.duration(op);
+            jobRelease[chosen] = end;
+            machineRelease[machine] = end;
+            next[chosen]++;
+            order.addTask(op);
+        }
+        return order;
+    }
+
+    /**
+     * Job of the conflict set to schedule : the best one if candidates is 1, a random one among the `candidates` best
+     * ones otherwise. The conflict set is partially sorted by value in place.
+     */
+    private int select(int size, Random random, int candidates) {
+        int k = Math.min(candidates, size);
+        // selection sort of the k best jobs, stable with respect to job order
+        for(int i = 0 ; i < k ; i++) {
+            int best = i;
+            for(int c = i + 1 ; c < size ; c++) {
+                if(values[c] < values[best] || (values[c] == values[best] && conflict[c] < conflict[best]))
+                    best = c;
+            }
+            int job = conflict[best];
+            double value = values[best];
+            conflict[best] = conflict[i];
+            values[best] = values[i];
+            conflict[i] = job;
+            values[i] = value;
+        }
+        return conflict[k == 1 ? 0 : random.nextInt(k)];
+    }
+}
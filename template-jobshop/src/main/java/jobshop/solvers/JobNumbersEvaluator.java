@@ -0,0 +1,179 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.JobNumbers;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates moves of a JobNumbers sequence (swap or insertion of two of its positions) without allocating anything.
+ *
+ * The sequence is decoded as in JobNumbers.toSchedule(), but only the makespan is computed. The decoding state (end
+ * of each job, release time of each machine) is saved every `stride` positions of the current sequence, so that a
+ * move only decodes the sequence again from the last checkpoint before its first position.
+ *
+ * A move is applied to the sequence of the evaluator, which returns its makespan : it must then be either kept with
+ * {@link #accept()} or undone with {@link #reject()} before the next move.
+ */
+public class JobNumbersEvaluator {
+
+    private final Instance instance;
+    private final int length;
+    private final int stride;
+
+    private final int[] jobs;
+    private int makespan;
+
+    /** decoding state : end of the last decoded task of each job, index of its next task, release of each machine */
+    private final int[] jobEnd;
+    private final int[] nextTask;
+    private final int[] machineEnd;
+    /** state before position k * stride, and largest end before this position, for each checkpoint k */
+    private final int[] checkpoints;
+    private final int[] checkpointMakespans;
+    private final int stateSize;
+
+    /** pending move, NONE if there is none */
+    private static final int NONE = 0, SWAP = 1, INSERT = 2;
+    private int pending = NONE;
+    private int moveFrom, moveTo, pendingMakespan;
+
+    public JobNumbersEvaluator(Instance instance) {
+        this.instance = instance;
+        this.length = instance.numOps;
+        // restoring a checkpoint costs about as much as decoding `stride` positions
+        this.stride = Math.max(1, 2 * instance.numJobs + instance.numMachines);
+        this.jobs = new int[length];
+        this.jobEnd = new int[instance.numJobs];
+        this.nextTask = new int[instance.numJobs];
+        this.machineEnd = new int[instance.numMachines];
+        this.stateSize = 2 * instance.numJobs + instance.numMachines;
+        int numCheckpoints = (length + stride - 1) / stride + 1;
+        this.checkpoints = new int[numCheckpoints * stateSize];
+        this.checkpointMakespans = new int[numCheckpoints];
+    }
+
+    /** Takes a copy of the (complete) sequence as current sequence. */
+    public void load(JobNumbers solution) {
+        System.arraycopy(solution.jobs, 0, jobs, 0, length);
+        pending = NONE;
+        Arrays.fill(jobEnd, 0);
+        Arrays.fill(nextTask, 0);
+        Arrays.fill(machineEnd, 0);
+        makespan = decode(0, 0, true);
+    }
+
+    /** Makespan of the current sequence. */
+    public int makespan() {
+        return makespan;
+    }
+
+    /** Job at the given position of the current sequence (including the pending move, if any). */
+    public int jobAt(int position) {
+        return jobs[position];
+    }
+
+    /** Copies the current sequence into the given solution. */
+    public void copyTo(JobNumbers solution) {
+        System.arraycopy(jobs, 0, solution.jobs, 0, length);
+        solution.nextToSet = length;
+    }
+
+    /** Exchanges the jobs at positions i and j and returns the new makespan. */
+    public int swap(int i, int j) {
+        exchange(i, j);
+        return evaluate(SWAP, i, j);
+    }
+
+    /** Moves the job at position `from` to position `to`, shifting the jobs between them, and returns the new makespan. */
+    public int insert(int from, int to) {
+        shift(from, to);
+        return evaluate(INSERT, from, to);
+    }
+
+    /** Keeps the pending move. */
+    public void accept() {
+        if(pending == NONE)
+            throw new IllegalStateException("No move to accept");
+        // the decoding is done again to update the checkpoints that follow the move
+        int start = restore(Math.min(moveFrom, moveTo));
+        makespan = decode(start, checkpointMakespans[start / stride], true);
+        assert makespan == pendingMakespan;
+        pending = NONE;
+    }
+
+    /** Undoes the pending move. */
+    public void reject() {
+        if(pending == SWAP)
+            exchange(moveFrom, moveTo);
+        else if(pending == INSERT)
+            shift(moveTo, moveFrom);
+        else
+            throw new IllegalStateException("No move to reject");
+        pending = NONE;
+    }
+
+    private int evaluate(int move, int from, int to) {
+        if(pending != NONE)
+            throw new IllegalStateException("The previous move was neither accepted nor rejected");
+        pending = move;
+        moveFrom = from;
+        moveTo = to;
+        int start = restore(Math.min(from, to));
+        pendingMakespan = decode(start, checkpointMakespans[start / stride], false);
+        return pendingMakespan;
+    }
+
+    private void exchange(int i, int j) {
+        int job = jobs[i];
+        jobs[i] = jobs[j];
+        jobs[j] = job;
+    }
+
+    private void shift(int from, int to) {
+        int job = jobs[from];
+        if(from < to)
+            System.arraycopy(jobs, from + 1, jobs, from, to - from);
+        else
+            System.arraycopy(jobs, to, jobs, to + 1, from - to);
+        jobs[to] = job;
+    }
+
+    /** Restores the decoding state of the last checkpoint not after the position, and returns its position. */
+    private int restore(int position) {
+        int k = position / stride;
+        int offset = k * stateSize;
+        int numJobs = instance.numJobs;
+        System.arraycopy(checkpoints, offset, jobEnd, 0, numJobs);
+        System.arraycopy(checkpoints, offset + numJobs, nextTask, 0, numJobs);
+        System.arraycopy(checkpoints, offset + 2 * numJobs, machineEnd, 0, instance.numMachines);
+        return k * stride;
+    }
+
+    /**
+     * Decodes the sequence from the given position, the decoding state being the one before this position and
+     * `largest` the largest end of the tasks before it. Saves the checkpoints on the way if `save` is true.
+     * Returns the makespan.
+     */
+    private int decode(int start, int largest, boolean save) {
+        int numJobs = instance.numJobs;
+        for(int position = start ; position < length ; position++) {
+            if(save && position % stride == 0) {
+                int offset = (position / stride) * stateSize;
+                System.arraycopy(jobEnd, 0, checkpoints, offset, numJobs);
+                System.arraycopy(nextTask, 0, checkpoints, offset + numJobs, numJobs);
+                System.arraycopy(machineEnd, 0, checkpoints, offset + 2 * numJobs, instance.numMachines);
+                checkpointMakespans[position / stride] = largest;
+            }
+            int job = jobs[position];
+            int op = instance.op(job, nextTask[job]++);
+            int machine = instance.machine(op);
+            int end = Math.max(jobEnd[job], machineEnd[machine]) + instance.duration(op);
+            jobEnd[job] = end;
+            machineEnd[machine] = end;
+            if(end > largest)
+                largest = end;
+        }
+        return largest;
+    }
+}
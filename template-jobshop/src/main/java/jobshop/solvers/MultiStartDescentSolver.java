@@ -0,0 +1,127 @@
+package jobshop.solvers;
+
+import jobshop.IncumbentListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.SolverStats;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs descents (see DescentSolver) from many start points in parallel until the deadline.
+ *
+ * Each worker repeatedly draws a start point with a randomized Giffler-Thompson generator (GRASP), improves it with
+ * a descent and keeps the best local optimum it found. The first start point of the first worker is the
+ * GreedyESTLRPT solution, so that this solver is never worse than DescentSolver.
+ * All workers stop as soon as one of them reaches the lower bound of the instance. A single worker runs on the calling
+ * thread. The number of descents run by each worker w is reported in the counter restarts_w of the statistics.
+ */
+public class MultiStartDescentSolver implements Solver {
+
+    /** number of best tasks of each conflict set among which a start point generation picks randomly */
+    private static final int GRASP_CANDIDATES = 3;
+
+    private final int numWorkers;
+
+    /** Creates a solver using all available processors. */
+    public MultiStartDescentSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public MultiStartDescentSolver(int numWorkers) {
+        if(numWorkers < 1)
+            throw new IllegalArgumentException("At least one worker is needed, got " + numWorkers);
+        this.numWorkers = numWorkers;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        SolverStats stats = new SolverStats();
+        SolverStats[] workerStats = new SolverStats[numWorkers];
+        int lowerBound = LowerBound.of(instance);
+        AtomicBoolean optimal = new AtomicBoolean(false);
+        List<Callable<ResourceOrder>> workers = new ArrayList<>();
+        for(int w = 0 ; w < numWorkers ; w++) {
+            final int worker = w;
+            workers.add(() -> run(instance, deadline, worker, workerStats, lowerBound, optimal));
+        }
+
+        ResourceOrder best = null;
+        if(numWorkers == 1) {
+            best = run(instance, deadline, 0, workerStats, lowerBound, optimal);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(numWorkers);
+            try {
+                for(Future<ResourceOrder> future : pool.invokeAll(workers)) {
+                    ResourceOrder order = future.get();
+                    if(best == null || order.makespan() < best.makespan())
+                        best = order;
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException("Multi-start descent failed", e);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for(int w = 0 ; w < numWorkers ; w++) {
+            stats.merge(workerStats[w]);
+            stats.counter("restarts_w" + w, workerStats[w].restarts());
+        }
+
+        Schedule schedule = best.toSchedule();
+        assert schedule.checkValid();
+        Result.ExitCause cause = optimal.get() ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, schedule, cause, stats.stop());
+    }
+
+    /**
+     * Runs descents from randomized start points until the deadline, or until a worker reaches the lower bound, and
+     * returns the best local optimum found.
+     */
+    private static ResourceOrder run(Instance instance, long deadline, int worker, SolverStats[] workerStats,
+                                     int lowerBound, AtomicBoolean optimal) {
+        SolverStats stats = new SolverStats();
+        // interrupts the descents of this worker once another one found an optimal solution
+        IncumbentListener stopWhenOptimal = new IncumbentListener() {
+            @Override
+            public void onIncumbent(Schedule schedule, int makespan, long timestamp) {}
+
+            @Override
+            public boolean stopRequested() {
+                return optimal.get();
+            }
+        };
+        // each worker has its own generator, seeded by its index so that runs can be reproduced
+        Random generator = new Random(worker);
+        GifflerThompson starts = new GifflerThompson(instance, GifflerThompson.Mode.NON_DELAY, PriorityRule.MWKR);
+
+        ResourceOrder best = null;
+        do {
+            ResourceOrder current;
+            if(best == null && worker == 0) {
+                current = new ResourceOrder(new GreedyESTLRPT().solve(instance, deadline).schedule);
+            } else {
+                current = starts.generate(generator, GRASP_CANDIDATES);
+            }
+            DescentSolver.descent(current, deadline, stats, stopWhenOptimal);
+            stats.restarted();
+            if(best == null || current.makespan() < best.makespan())
+                best = current;
+            if(best.makespan() <= lowerBound)
+                optimal.set(true);
+        } while(deadline - System.currentTimeMillis() > 1 && !optimal.get());
+        workerStats[worker] = stats.stop();
+        return best;
+    }
+}
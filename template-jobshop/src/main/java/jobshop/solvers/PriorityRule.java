@@ -0,0 +1,53 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+
+import java.util.Random;
+
+/**
+ * Priority rule used by the GifflerThompson generator to choose a task among a conflict set.
+ * The task with the smallest value is chosen first.
+ */
+@FunctionalInterface
+public interface PriorityRule {
+
+    /**
+     * Value of a task of the conflict set.
+     *
+     * @param op operation id of the task
+     * @param release time at which the task became schedulable (end of its predecessor on the job)
+     * @param random generator for randomized rules
+     */
+    double value(Instance instance, int op, int release, Random random);
+
+    /** Shortest processing time of the task first. */
+    PriorityRule SPT = (instance, op, release, random) -> instance.duration(op);
+
+    /** Longest remaining processing time of the job, including the task, first. */
+    PriorityRule LRPT = (instance, op, release, random) ->
+            -instance.remainingDuration(instance.jobOf(op), instance.taskOf(op));
+
+    /** Most work remaining in the job after the task first. */
+    PriorityRule MWKR = (instance, op, release, random) ->
+            -instance.remainingDuration(instance.jobOf(op), instance.taskOf(op) + 1);
+
+    /** Task that became schedulable first, first. */
+    PriorityRule FIFO = (instance, op, release, random) -> release;
+
+    /** Uniformly random choice. */
+    PriorityRule RANDOM = (instance, op, release, random) -> random.nextDouble();
+
+    /** Weighted sum of several rules. */
+    static PriorityRule weighted(double[] weights, PriorityRule... rules) {
+        if(weights.length != rules.length)
+            throw new IllegalArgumentException("One weight is needed for each rule");
+        double[] w = weights.clone();
+        PriorityRule[] r = rules.clone();
+        return (instance, op, release, random) -> {
+            double value = 0;
+            for(int i = 0 ; i < r.length ; i++)
+                value += w[i] * r[i].value(instance, op, release, random);
+            return value;
+        };
+    }
+}
@@ -10,6 +10,13 @@ public class RandomSolver implements Solver {
 
     @Override
     public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, IncumbentListener.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, IncumbentListener listener) {
+        SolverStats stats = new SolverStats();
+        int lowerBound = LowerBound.of(instance);
         Random generator = new Random(0);
 
         JobNumbers sol = new JobNumbers(instance);
@@ -20,16 +27,28 @@ public class RandomSolver implements Solver {
             }
         }
         Schedule best = sol.toSchedule();
-        while(deadline - System.currentTimeMillis() > 1) {
+        stats.improved(0, best.makespan());
+        listener.onIncumbent(best, best.makespan(), System.currentTimeMillis());
+        long k = 0;
+        while(listener.deadline(deadline) - System.currentTimeMillis() > 1) {
+            if(best.makespan() <= lowerBound)
+                return new Result(instance, best, Result.ExitCause.ProvedOptimal, stats.stop());
+            if(listener.stopRequested())
+                return new Result(instance, best, Result.ExitCause.Cancelled, stats.stop());
             shuffleArray(sol.jobs, generator);
             Schedule s = sol.toSchedule();
+            stats.evaluated(1);
+            k++;
             if(s.makespan() < best.makespan()) {
                 best = s;
+                assert best.checkValid();
+                stats.improved(k, best.makespan());
+                listener.onIncumbent(best, best.makespan(), System.currentTimeMillis());
             }
         }
 
 
-        return new Result(instance, best, Result.ExitCause.Timeout);
+        return new Result(instance, best, Result.ExitCause.Timeout, stats.stop());
     }
 
     /** Simple Fisher–Yates array shuffling */
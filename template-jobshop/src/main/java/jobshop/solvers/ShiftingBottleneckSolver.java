@@ -0,0 +1,269 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.SolverStats;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.Arrays;
+
+/**
+ * Shifting bottleneck heuristic of Adams, Balas and Zawack (1988).
+ *
+ * Machines are sequenced one at a time. At each step, the heads and tails of the tasks are the longest paths in the
+ * graph of the job arcs and of the sequences of the machines already sequenced : each machine not sequenced yet
+ * defines a one-machine problem with heads and tails (see Carlier), and the bottleneck is the machine whose problem
+ * has the largest makespan. Its sequence is added to the graph, then the machines sequenced before are reoptimized
+ * one after the other : each of them is removed from the graph and sequenced again with the heads and tails given by
+ * the others, the new sequence being kept unless the makespan of the graph increases.
+ *
+ * A one-machine sequence that creates a cycle with the paths of the graph (Carlier's branching may do so, as it
+ * ignores these paths) is replaced by the Schrage sequence, which respects them.
+ * Once the deadline is passed, the remaining machines are sequenced by Schrage's rule without reoptimization.
+ */
+public class ShiftingBottleneckSolver implements Solver {
+
+    /** largest number of nodes of Carlier's branch and bound on each one-machine problem */
+    private final int nodeLimit;
+    /** number of reoptimization passes over the sequenced machines after each bottleneck */
+    private final int cycles;
+
+    public ShiftingBottleneckSolver() {
+        this(200, 2);
+    }
+
+    public ShiftingBottleneckSolver(int nodeLimit, int cycles) {
+        if(nodeLimit < 1)
+            throw new IllegalArgumentException("At least one node is needed, got " + nodeLimit);
+        if(cycles < 0)
+            throw new IllegalArgumentException("Number of reoptimization cycles must not be negative, got " + cycles);
+        this.nodeLimit = nodeLimit;
+        this.cycles = cycles;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        SolverStats stats = new SolverStats();
+        ResourceOrder order = sequence(instance, deadline, stats);
+        int makespan = order.makespan();
+        stats.improved(0, makespan);
+        Result.ExitCause cause = makespan <= LowerBound.of(instance) ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Blocked;
+        return new Result(instance, order.toSchedule(), cause, stats.stop());
+    }
+
+    /** Sequences all the machines. The nodes of the one-machine problems are counted as evaluations. */
+    public ResourceOrder sequence(Instance instance, long deadline, SolverStats stats) {
+        return new Run(instance, deadline, stats).sequence();
+    }
+
+    /** State of a run : graph of the machines sequenced so far and buffers. */
+    private final class Run {
+        final Instance instance;
+        final long deadline;
+        final SolverStats stats;
+
+        /** tasks of each machine, and their sequence once the machine is sequenced (null before) */
+        final int[][] machineOps;
+        final int[][] sequences;
+        /** heads and tails of the tasks, and their rank in a topological order of the graph */
+        final int[] heads;
+        final int[] tails;
+        final int[] rank;
+
+        final Carlier carlier;
+        // buffers of Kahn's algorithm, of the one-machine problems and of their results
+        final int[] order;
+        final int[] inDegree;
+        final int[] successor;
+        final int[] h, p, q, result;
+
+        Run(Instance instance, long deadline, SolverStats stats) {
+            this.instance = instance;
+            this.deadline = deadline;
+            this.stats = stats;
+            machineOps = new int[instance.numMachines][instance.numJobs];
+            int[] count = new int[instance.numMachines];
+            for(int op = 0 ; op < instance.numOps ; op++) {
+                int m = instance.machine(op);
+                machineOps[m][count[m]++] = op;
+            }
+            sequences = new int[instance.numMachines][];
+            heads = new int[instance.numOps];
+            tails = new int[instance.numOps];
+            rank = new int[instance.numOps];
+            carlier = new Carlier(instance.numJobs);
+            order = new int[instance.numOps];
+            inDegree = new int[instance.numOps];
+            successor = new int[instance.numOps];
+            h = new int[instance.numJobs];
+            p = new int[instance.numJobs];
+            q = new int[instance.numJobs];
+            result = new int[instance.numJobs];
+        }
+
+        ResourceOrder sequence() {
+            int makespan = longestPaths();
+            for(int step = 0 ; step < instance.numMachines ; step++) {
+                boolean late = System.currentTimeMillis() >= deadline;
+                // bottleneck among the machines not sequenced yet
+                int bottleneck = -1;
+                int bottleneckMakespan = -1;
+                int[] bottleneckSequence = null;
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    if(sequences[m] != null)
+                        continue;
+                    int value = oneMachine(m, late ? 1 : nodeLimit);
+                    if(value > bottleneckMakespan) {
+                        bottleneck = m;
+                        bottleneckMakespan = value;
+                        bottleneckSequence = sequenceOf(m);
+                    }
+                }
+                makespan = add(bottleneck, bottleneckSequence);
+
+                for(int cycle = 0 ; cycle < cycles && System.currentTimeMillis() < deadline ; cycle++) {
+                    for(int m = 0 ; m < instance.numMachines ; m++) {
+                        if(m == bottleneck || sequences[m] == null)
+                            continue;
+                        int[] previous = sequences[m];
+                        sequences[m] = null;
+                        longestPaths();
+                        oneMachine(m, nodeLimit);
+                        int value = add(m, sequenceOf(m));
+                        if(value > makespan) {
+                            sequences[m] = previous;
+                            longestPaths();
+                        } else {
+                            makespan = value;
+                        }
+                    }
+                }
+            }
+
+            ResourceOrder solution = new ResourceOrder(instance);
+            for(int[] sequence : sequences) {
+                for(int op : sequence)
+                    solution.addTask(op);
+            }
+            return solution;
+        }
+
+        /**
+         * Solves the one-machine problem of machine m with the current heads and tails, exploring at most `limit`
+         * nodes. The sequence is left in `result`, as indices in machineOps[m].
+         */
+        int oneMachine(int m, int limit) {
+            int[] ops = machineOps[m];
+            for(int i = 0 ; i < ops.length ; i++) {
+                h[i] = heads[ops[i]];
+                p[i] = instance.duration(ops[i]);
+                q[i] = tails[ops[i]];
+            }
+            int makespan = carlier.solve(h, p, q, ops.length, limit, result);
+            stats.evaluated(carlier.nodes());
+            return makespan;
+        }
+
+        /** Tasks of machine m in the order of the last one-machine solution. */
+        int[] sequenceOf(int m) {
+            int[] sequence = new int[machineOps[m].length];
+            for(int i = 0 ; i < sequence.length ; i++)
+                sequence[i] = machineOps[m][result[i]];
+            return sequence;
+        }
+
+        /**
+         * Adds the sequence of machine m to the graph, or the Schrage sequence (or else the topological order) if it
+         * creates a cycle. The heads and tails of the graph without m must be up to date. Returns the new makespan.
+         */
+        int add(int m, int[] sequence) {
+            sequences[m] = sequence;
+            int makespan = longestPaths();
+            if(makespan >= 0)
+                return makespan;
+
+            sequences[m] = null;
+            longestPaths();
+            oneMachine(m, 1);
+            sequences[m] = sequenceOf(m);
+            makespan = longestPaths();
+            if(makespan >= 0)
+                return makespan;
+
+            // tasks without duration may tie in Schrage's rule
+            sequences[m] = null;
+            longestPaths();
+            int[] ops = machineOps[m].clone();
+            long[] keys = new long[ops.length];
+            for(int i = 0 ; i < ops.length ; i++)
+                keys[i] = ((long) rank[ops[i]] << 32) | ops[i];
+            Arrays.sort(keys);
+            for(int i = 0 ; i < ops.length ; i++)
+                ops[i] = (int) keys[i];
+            sequences[m] = ops;
+            return longestPaths();
+        }
+
+        /**
+         * Computes the heads, tails and ranks of the tasks in the graph of the job arcs and of the sequences.
+         * Returns the makespan of the graph, -1 if it contains a cycle.
+         */
+        int longestPaths() {
+            int numOps = instance.numOps;
+            Arrays.fill(inDegree, 0);
+            Arrays.fill(successor, -1);
+            for(int[] sequence : sequences) {
+                if(sequence == null)
+                    continue;
+                for(int i = 0 ; i + 1 < sequence.length ; i++) {
+                    successor[sequence[i]] = sequence[i + 1];
+                    inDegree[sequence[i + 1]]++;
+                }
+            }
+            int size = 0;
+            for(int op = 0 ; op < numOps ; op++) {
+                if(instance.taskOf(op) > 0)
+                    inDegree[op]++;
+                heads[op] = 0;
+            }
+            for(int op = 0 ; op < numOps ; op++) {
+                if(inDegree[op] == 0)
+                    order[size++] = op;
+            }
+            for(int i = 0 ; i < size ; i++) {
+                int op = order[i];
+                rank[op] = i;
+                int end = heads[op] + instance.duration(op);
+                if(instance.taskOf(op) < instance.numTasks - 1) {
+                    heads[op + 1] = Math.max(heads[op + 1], end);
+                    if(--inDegree[op + 1] == 0)
+                        order[size++] = op + 1;
+                }
+                int next = successor[op];
+                if(next != -1) {
+                    heads[next] = Math.max(heads[next], end);
+                    if(--inDegree[next] == 0)
+                        order[size++] = next;
+                }
+            }
+            if(size < numOps)
+                return -1;
+
+            int makespan = 0;
+            for(int i = numOps - 1 ; i >= 0 ; i--) {
+                int op = order[i];
+                int tail = 0;
+                if(instance.taskOf(op) < instance.numTasks - 1)
+                    tail = instance.duration(op + 1) + tails[op + 1];
+                int next = successor[op];
+                if(next != -1)
+                    tail = Math.max(tail, instance.duration(next) + tails[next]);
+                tails[op] = tail;
+                makespan = Math.max(makespan, heads[op] + instance.duration(op) + tail);
+            }
+            return makespan;
+        }
+    }
+}
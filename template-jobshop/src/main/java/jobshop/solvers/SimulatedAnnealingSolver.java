@@ -0,0 +1,231 @@
+package jobshop.solvers;
+
+import jobshop.IncumbentListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.SolverStats;
+import jobshop.encodings.JobNumbers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Simulated annealing on the JobNumbers encoding, until the deadline.
+ *
+ * A move swaps two jobs of the sequence, or moves a job to another position, at most `window` positions away. It is
+ * evaluated by a JobNumbersEvaluator (nothing is allocated outside of improvements of the best solution), accepted
+ * if it does not increase the makespan, and otherwise accepted with probability exp(-delta / T).
+ *
+ * The cooling schedule is driven by the time left : the temperature decreases geometrically from T0 at the start to
+ * T_END at the deadline, as a function of the elapsed fraction of the available time, so that a run always ends in
+ * the quench phase whatever its duration. T0 is calibrated on the instance : an average worsening move is accepted
+ * with probability 1/2 at the start.
+ *
+ * Several independent chains can run in parallel, each from its own start point and with its own random generator
+ * (the first one starts from the best of the priority rules, the others from randomized ones). The best solution of
+ * all chains is published to the listener, and all chains stop once it reaches the lower bound.
+ */
+public class SimulatedAnnealingSolver implements Solver {
+
+    /** temperature at the deadline : a worsening of 1 is then accepted with probability exp(-5) */
+    private static final double T_END = 0.2;
+    /** number of moves sampled to calibrate the initial temperature */
+    private static final int CALIBRATION_MOVES = 200;
+    /** number of moves between two updates of the temperature (and checks of the deadline) */
+    private static final int PERIOD = 1024;
+    /** number of best tasks of each conflict set among which a start point generation picks randomly */
+    private static final int GRASP_CANDIDATES = 3;
+
+    private final int numChains;
+
+    /** Creates a solver running one chain per available processor. */
+    public SimulatedAnnealingSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SimulatedAnnealingSolver(int numChains) {
+        if(numChains < 1)
+            throw new IllegalArgumentException("At least one chain is needed, got " + numChains);
+        this.numChains = numChains;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, IncumbentListener.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, IncumbentListener listener) {
+        SolverStats stats = new SolverStats();
+        Search search = new Search(instance, System.currentTimeMillis(), deadline, listener);
+        SolverStats[] chainStats = new SolverStats[numChains];
+        if(numChains == 1) {
+            chainStats[0] = search.run(0);
+        } else {
+            List<Callable<SolverStats>> chains = new ArrayList<>();
+            for(int c = 0 ; c < numChains ; c++) {
+                final int chain = c;
+                chains.add(() -> search.run(chain));
+            }
+            ForkJoinPool pool = new ForkJoinPool(numChains);
+            try {
+                List<Future<SolverStats>> futures = pool.invokeAll(chains);
+                for(int c = 0 ; c < numChains ; c++)
+                    chainStats[c] = futures.get(c).get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException("Simulated annealing failed", e);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for(SolverStats chain : chainStats)
+            stats.merge(chain);
+
+        Schedule schedule = search.best.toSchedule();
+        assert schedule.checkValid();
+        Result.ExitCause cause = Result.ExitCause.Timeout;
+        if(search.bestMakespan <= search.lowerBound)
+            cause = Result.ExitCause.ProvedOptimal;
+        else if(listener.stopRequested())
+            cause = Result.ExitCause.Cancelled;
+        return new Result(instance, schedule, cause, stats.stop());
+    }
+
+    /** State shared by the chains of a call to solve. */
+    private static final class Search {
+        final Instance instance;
+        final long start;
+        final long deadline;
+        final IncumbentListener listener;
+        final int lowerBound;
+        /** largest distance between the two positions of a move */
+        final int window;
+
+        /** best solution of all chains, only updated while holding the lock of the search */
+        volatile JobNumbers best;
+        volatile int bestMakespan = Integer.MAX_VALUE;
+        /** set when a chain must not start another period : optimum reached or stop requested */
+        volatile boolean stopped = false;
+
+        Search(Instance instance, long start, long deadline, IncumbentListener listener) {
+            this.instance = instance;
+            this.start = start;
+            this.deadline = deadline;
+            this.listener = listener;
+            this.lowerBound = LowerBound.of(instance);
+            this.window = Math.max(2, instance.numJobs);
+        }
+
+        /** Runs a chain until the deadline and returns its statistics. */
+        SolverStats run(int chain) {
+            SolverStats stats = new SolverStats();
+            // each chain has its own generator, seeded by its index so that runs can be reproduced
+            Random random = new Random(chain);
+            JobNumbersEvaluator evaluator = new JobNumbersEvaluator(instance);
+            if(chain == 0) {
+                evaluator.load(new JobNumbers(GifflerThompson.bestOfRules(instance).toSchedule()));
+            } else {
+                GifflerThompson starts = new GifflerThompson(instance, GifflerThompson.Mode.NON_DELAY, PriorityRule.MWKR);
+                evaluator.load(new JobNumbers(starts.generate(random, GRASP_CANDIDATES).toSchedule()));
+            }
+            int current = evaluator.makespan();
+            int chainBest = current;
+            long iteration = 0;
+            stats.improved(iteration, current);
+            improve(evaluator, current);
+
+            double initialTemperature = Math.max(T_END, calibrate(evaluator, random, stats) / Math.log(2));
+            while(!stopped) {
+                long now = System.currentTimeMillis();
+                if(now >= deadline)
+                    break;
+                if(bestMakespan <= lowerBound || listener.stopRequested()) {
+                    stopped = true;
+                    break;
+                }
+                double elapsed = (double) (now - start) / Math.max(1, deadline - start);
+                double temperature = initialTemperature * Math.pow(T_END / initialTemperature, elapsed);
+                int evaluated = 0;
+
+                for(int k = 0 ; k < PERIOD ; k++) {
+                    iteration++;
+                    int makespan = randomMove(evaluator, random);
+                    if(makespan == -1)
+                        continue;
+                    evaluated++;
+                    int delta = makespan - current;
+                    if(delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                        evaluator.accept();
+                        stats.accepted();
+                        current = makespan;
+                        if(current < chainBest) {
+                            chainBest = current;
+                            stats.improved(iteration, current);
+                            if(current < bestMakespan)
+                                improve(evaluator, current);
+                        }
+                    } else {
+                        evaluator.reject();
+                    }
+                }
+                stats.evaluated(evaluated);
+            }
+            return stats.stop();
+        }
+
+        /**
+         * Applies a random move to the evaluator and returns its makespan, -1 if the drawn move is out of the sequence
+         * or swaps two tasks of the same job (it is then not applied).
+         */
+        private int randomMove(JobNumbersEvaluator evaluator, Random random) {
+            int length = instance.numOps;
+            int from = random.nextInt(length);
+            int distance = 1 + random.nextInt(window);
+            int to = random.nextBoolean() ? from + distance : from - distance;
+            if(to < 0 || to >= length)
+                return -1;
+            if(random.nextBoolean())
+                return evaluator.insert(from, to);
+            if(evaluator.jobAt(from) == evaluator.jobAt(to))
+                return -1;
+            return evaluator.swap(from, to);
+        }
+
+        /** Average increase of the makespan over random worsening moves, none of them being kept. */
+        private double calibrate(JobNumbersEvaluator evaluator, Random random, SolverStats stats) {
+            long total = 0;
+            int count = 0;
+            int current = evaluator.makespan();
+            for(int k = 0 ; k < CALIBRATION_MOVES ; k++) {
+                int makespan = randomMove(evaluator, random);
+                if(makespan == -1)
+                    continue;
+                evaluator.reject();
+                stats.evaluated(1);
+                if(makespan > current) {
+                    total += makespan - current;
+                    count++;
+                }
+            }
+            return count == 0 ? T_END : (double) total / count;
+        }
+
+        private synchronized void improve(JobNumbersEvaluator evaluator, int makespan) {
+            if(makespan >= bestMakespan)
+                return;
+            JobNumbers solution = new JobNumbers(instance);
+            evaluator.copyTo(solution);
+            best = solution;
+            bestMakespan = makespan;
+            listener.onIncumbent(solution.toSchedule(), makespan, System.currentTimeMillis());
+        }
+    }
+}
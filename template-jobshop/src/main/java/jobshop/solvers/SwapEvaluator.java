@@ -0,0 +1,259 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+
+/**
+ * Evaluates swaps of two adjacent tasks on a machine of a ResourceOrder without rescheduling the whole solution.
+ *
+ * For every operation o (identified by its operation id), the evaluator keeps :
+ *  - its head r(o) : the earliest start time of o, i.e. the length of the longest path from the source to o
+ *  - its tail q(o) : the length of the longest path from the end of o to the sink
+ * so that the makespan is the maximum of r(o) + p(o) + q(o).
+ *
+ * Heads and tails are computed once by {@link #load(ResourceOrder)}, which should be called again only when a move
+ * is accepted. Candidate moves are then scored with {@link #estimate(int, int)} (Taillard's estimate) or
+ * {@link #exact(int, int)}.
+ */
+public class SwapEvaluator {
+
+    private final Instance instance;
+    private final int numOps;
+
+    /** earliest start time of each operation */
+    private final int[] heads;
+    /** longest path from the end of each operation to the end of the schedule */
+    private final int[] tails;
+    /** operation that precedes (resp. follows) each operation on its machine, -1 if there is none */
+    private final int[] machinePred;
+    private final int[] machineSucc;
+    /** operations in topological order and index of each operation in this order */
+    private final int[] topoOrder;
+    private final int[] topoIndex;
+    /** prefixEnd[k] is the latest end time among the k first operations of the topological order */
+    private final int[] prefixEnd;
+
+    /** buffers used by load() and by exact() when no other scratch space is given */
+    private final Scratch scratch;
+
+    private ResourceOrder order;
+    private int makespan;
+
+    public SwapEvaluator(Instance instance) {
+        this.instance = instance;
+        this.numOps = instance.numOps;
+        this.heads = new int[numOps];
+        this.tails = new int[numOps];
+        this.machinePred = new int[numOps];
+        this.machineSucc = new int[numOps];
+        this.topoOrder = new int[numOps];
+        this.topoIndex = new int[numOps];
+        this.prefixEnd = new int[numOps + 1];
+        this.scratch = new Scratch(instance);
+    }
+
+    /**
+     * Working buffers of exact(). The evaluator itself is only read by exact(), so several threads can score moves
+     * of the same loaded solution concurrently as long as each one uses its own scratch space.
+     */
+    public static final class Scratch {
+        private final int[] inDegree;
+        private final int[] newHeads;
+        private final int[] queue;
+
+        public Scratch(Instance instance) {
+            this.inDegree = new int[instance.numOps];
+            this.newHeads = new int[instance.numOps];
+            this.queue = new int[instance.numOps];
+        }
+    }
+
+    /** Predecessor of the operation on its job, -1 if it is the first task of the job. */
+    private int jobPred(int op) {
+        return instance.taskOf(op) == 0 ? -1 : op - 1;
+    }
+
+    /** Successor of the operation on its job, -1 if it is the last task of the job. */
+    private int jobSucc(int op) {
+        return instance.taskOf(op) == instance.numTasks - 1 ? -1 : op + 1;
+    }
+
+    /** End time of the operation in the current solution, 0 for a missing operation (-1). */
+    private int end(int op) {
+        return op < 0 ? 0 : heads[op] + instance.duration(op);
+    }
+
+    /** Length of the longest path going out of the operation, 0 for a missing operation (-1). */
+    private int out(int op) {
+        return op < 0 ? 0 : instance.duration(op) + tails[op];
+    }
+
+    /**
+     * Computes heads and tails of all operations for the given resource order.
+     * Returns false if the resource order contains a cycle (in which case the evaluator must not be used).
+     */
+    public boolean load(ResourceOrder order) {
+        this.order = order;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int prev = -1;
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int cur = order.taskAt(m, i);
+                machinePred[cur] = prev;
+                machineSucc[cur] = -1;
+                if(prev >= 0)
+                    machineSucc[prev] = cur;
+                prev = cur;
+            }
+        }
+
+        // Kahn's algorithm, topoOrder is used as the queue
+        int[] inDegree = scratch.inDegree;
+        int head = 0, tail = 0;
+        for(int o = 0 ; o < numOps ; o++) {
+            inDegree[o] = (jobPred(o) >= 0 ? 1 : 0) + (machinePred[o] >= 0 ? 1 : 0);
+            if(inDegree[o] == 0)
+                topoOrder[tail++] = o;
+        }
+        while(head < tail) {
+            int o = topoOrder[head++];
+            int js = jobSucc(o);
+            if(js >= 0 && --inDegree[js] == 0)
+                topoOrder[tail++] = js;
+            int ms = machineSucc[o];
+            if(ms >= 0 && --inDegree[ms] == 0)
+                topoOrder[tail++] = ms;
+        }
+        if(tail != numOps)
+            return false;
+
+        makespan = 0;
+        for(int k = 0 ; k < numOps ; k++) {
+            int o = topoOrder[k];
+            topoIndex[o] = k;
+            heads[o] = Math.max(end(jobPred(o)), end(machinePred[o]));
+            prefixEnd[k] = makespan;
+            makespan = Math.max(makespan, heads[o] + instance.duration(o));
+        }
+        prefixEnd[numOps] = makespan;
+        for(int k = numOps - 1 ; k >= 0 ; k--) {
+            int o = topoOrder[k];
+            tails[o] = Math.max(out(jobSucc(o)), out(machineSucc[o]));
+        }
+        return true;
+    }
+
+    /** Makespan of the resource order that was last loaded. */
+    public int makespan() {
+        return makespan;
+    }
+
+    /**
+     * Taillard's estimate of the makespan obtained by swapping the tasks at indices `position` and `position+1`
+     * on the given machine.
+     *
+     * The estimate is the length of the longest path going through one of the two swapped tasks, it is thus a lower
+     * bound of the new makespan. It only looks at the two swapped tasks and their direct neighbors.
+     * The swap is assumed not to create a cycle, which is the case for the tasks of a critical block.
+     */
+    public int estimate(int machine, int position) {
+        int u = order.taskAt(machine, position);
+        int v = order.taskAt(machine, position + 1);
+
+        int headV = Math.max(end(jobPred(v)), end(machinePred[u]));
+        int headU = Math.max(headV + instance.duration(v), end(jobPred(u)));
+        int tailU = Math.max(out(jobSucc(u)), out(machineSucc[v]));
+        int tailV = Math.max(tailU + instance.duration(u), out(jobSucc(v)));
+
+        return Math.max(headV + instance.duration(v) + tailV, headU + instance.duration(u) + tailU);
+    }
+
+    /**
+     * Exact makespan obtained by swapping the tasks at indices `position` and `position+1` on the given machine,
+     * or Integer.MAX_VALUE if the swap would create a cycle.
+     *
+     * When possible, the topological order of the current solution is reused (with one of the swapped tasks moved
+     * next to the other) and only the heads of the tasks that follow the swapped tasks are recomputed.
+     */
+    public int exact(int machine, int position) {
+        return exact(machine, position, scratch);
+    }
+
+    /** Same as exact(machine, position), using the given scratch space (see Scratch). */
+    public int exact(int machine, int position, Scratch scratch) {
+        int[] newHeads = scratch.newHeads;
+        int u = order.taskAt(machine, position);
+        int v = order.taskAt(machine, position + 1);
+
+        int jpv = jobPred(v);
+        int jsu = jobSucc(u);
+        int first;
+        if(jpv < 0 || topoIndex[jpv] < topoIndex[u]) {
+            // v can be moved just before u in the topological order
+            first = topoIndex[u];
+        } else if(jsu < 0 || topoIndex[jsu] > topoIndex[v]) {
+            // u can be moved just after v in the topological order.
+            // The prefix then contains the old end of u, which is never later than its new end.
+            first = topoIndex[v];
+        } else {
+            return fullEvaluation(u, v, scratch);
+        }
+
+        int result = prefixEnd[first];
+        newHeads[v] = Math.max(end(jpv), end(machinePred[u]));
+        result = Math.max(result, newHeads[v] + instance.duration(v));
+        newHeads[u] = Math.max(newHeads[v] + instance.duration(v), end(jobPred(u)));
+        result = Math.max(result, newHeads[u] + instance.duration(u));
+
+        for(int k = first + 1 ; k < numOps ; k++) {
+            int o = topoOrder[k];
+            if(o == u || o == v)
+                continue;
+            int mp = o == machineSucc[v] ? u : machinePred[o];
+            newHeads[o] = Math.max(newEnd(jobPred(o), first, u, newHeads), newEnd(mp, first, u, newHeads));
+            result = Math.max(result, newHeads[o] + instance.duration(o));
+        }
+        return result;
+    }
+
+    /**
+     * End time of an operation during exact(): apart from the moved task u, operations before `first` in the
+     * topological order are unchanged.
+     */
+    private int newEnd(int op, int first, int u, int[] newHeads) {
+        if(op < 0)
+            return 0;
+        return (topoIndex[op] < first && op != u ? heads[op] : newHeads[op]) + instance.duration(op);
+    }
+
+    /** Makespan of the solution where u and v (adjacent on their machine) are swapped, computed from scratch. */
+    private int fullEvaluation(int u, int v, Scratch scratch) {
+        int[] inDegree = scratch.inDegree;
+        int[] newHeads = scratch.newHeads;
+        int[] queue = scratch.queue;
+        int pmu = machinePred[u];
+        int smv = machineSucc[v];
+        int head = 0, tail = 0;
+        for(int o = 0 ; o < numOps ; o++) {
+            int mp = o == v ? pmu : o == u ? v : o == smv ? u : machinePred[o];
+            inDegree[o] = (jobPred(o) >= 0 ? 1 : 0) + (mp >= 0 ? 1 : 0);
+            if(inDegree[o] == 0)
+                queue[tail++] = o;
+        }
+        int result = 0;
+        while(head < tail) {
+            int o = queue[head++];
+            int mp = o == v ? pmu : o == u ? v : o == smv ? u : machinePred[o];
+            int jp = jobPred(o);
+            newHeads[o] = Math.max(jp < 0 ? 0 : newHeads[jp] + instance.duration(jp), mp < 0 ? 0 : newHeads[mp] + instance.duration(mp));
+            result = Math.max(result, newHeads[o] + instance.duration(o));
+
+            int js = jobSucc(o);
+            if(js >= 0 && --inDegree[js] == 0)
+                queue[tail++] = js;
+            int ms = o == pmu ? v : o == v ? u : o == u ? smv : machineSucc[o];
+            if(ms >= 0 && --inDegree[ms] == 0)
+                queue[tail++] = ms;
+        }
+        return tail == numOps ? result : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,209 @@
+package jobshop.solvers;
+
+import jobshop.IncumbentListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.SolverStats;
+import jobshop.encodings.Block;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Swap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tabu search with back jump tracking (TSAB) of Nowicki and Smutnicki, on the N5 neighborhood.
+ *
+ * Each time a new best solution is found, it is saved in a bounded list of elite solutions together with the moves
+ * that have not been explored from it yet. When the search stalls (no improvement for `maxStall` iterations or all
+ * moves are taboo), it jumps back to the last elite solution and continues with its best unexplored move.
+ * When no elite solution is left, the search restarts from a perturbation of the best solution.
+ * The search only stops at the deadline, or when the solution is optimal : its makespan reaches the lower bound of
+ * the instance or its critical path is made of a single job.
+ */
+public class TSABSolver implements Solver {
+
+    /** number of iterations during which the reverse of an accepted swap is taboo */
+    private final int tenure;
+    /** maximum number of elite solutions kept for back jumps */
+    private final int maxElite;
+    /** number of iterations without improvement of the best solution before a back jump */
+    private final int maxStall;
+
+    public TSABSolver() {
+        this(8, 8, 1000);
+    }
+
+    public TSABSolver(int tenure, int maxElite, int maxStall) {
+        if(tenure < 1 || maxElite < 1 || maxStall < 1)
+            throw new IllegalArgumentException("TSAB parameters must be positive");
+        this.tenure = tenure;
+        this.maxElite = maxElite;
+        this.maxStall = maxStall;
+    }
+
+    /** A solution to jump back to, with the moves that were not explored from it yet. */
+    private static final class Elite {
+        final ResourceOrder order;
+        final List<Swap> unexplored;
+
+        Elite(ResourceOrder order, List<Swap> unexplored) {
+            this.order = order;
+            this.unexplored = unexplored;
+        }
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, IncumbentListener.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, IncumbentListener listener) {
+        SolverStats stats = new SolverStats();
+        Random generator = new Random(0);
+        ResourceOrder current = GifflerThompson.bestOfRules(instance);
+        SwapEvaluator evaluator = new SwapEvaluator(instance);
+        evaluator.load(current);
+        ResourceOrder best = current.copy();
+        int bestMakespan = evaluator.makespan();
+        stats.improved(0, bestMakespan);
+        listener.onIncumbent(best.toSchedule(), bestMakespan, System.currentTimeMillis());
+        int lowerBound = LowerBound.of(instance);
+
+        // elite solutions, the most recent one last. The oldest one is dropped when the list is full.
+        Deque<Elite> elites = new ArrayDeque<>();
+        // true when the current solution is the last elite solution, whose unexplored moves must then be updated
+        boolean currentIsElite = false;
+        TabuList taboo = new TabuList(tenure);
+        int k = 0;
+        int stall = 0;
+
+        while(listener.deadline(deadline) - System.currentTimeMillis() > 1) {
+            if(bestMakespan <= lowerBound)
+                return new Result(instance, best.toSchedule(), Result.ExitCause.ProvedOptimal, stats.stop());
+            if(listener.stopRequested())
+                return new Result(instance, best.toSchedule(), Result.ExitCause.Cancelled, stats.stop());
+            k++;
+            List<Swap> moves = neighbors(current);
+            if(moves.isEmpty()) {
+                // the critical path of the current solution is a single job : no solution can be shorter
+                return new Result(instance, current.toSchedule(), Result.ExitCause.ProvedOptimal, stats.stop());
+            }
+
+            // best admissible move : not taboo, or leading to a new best solution (aspiration)
+            Swap chosen = null;
+            int chosenMakespan = Integer.MAX_VALUE;
+            for(Swap move : moves) {
+                int makespan = evaluator.exact(move.machine, move.t1);
+                int u = current.taskAt(move.machine, move.t1);
+                int v = current.taskAt(move.machine, move.t2);
+                if((!taboo.isTabu(u, v, k) || makespan < bestMakespan) && makespan < chosenMakespan) {
+                    chosen = move;
+                    chosenMakespan = makespan;
+                }
+            }
+            stats.evaluated(moves.size());
+            if(currentIsElite && chosen != null) {
+                Elite elite = elites.peekLast();
+                elite.unexplored.remove(chosen);
+                if(elite.unexplored.isEmpty())
+                    elites.removeLast();
+            }
+            currentIsElite = false;
+
+            boolean stalled = chosen == null || stall >= maxStall;
+            if(stalled) {
+                // the search stalled : go back to an elite solution or restart around the best one
+                taboo = new TabuList(tenure);
+                stall = 0;
+                stats.restarted();
+                if(!elites.isEmpty()) {
+                    current = backJump(elites, evaluator, taboo, k, stats);
+                } else {
+                    current = best.copy();
+                    perturb(current, generator);
+                    evaluator.load(current);
+                }
+            } else {
+                taboo.add(current.taskAt(chosen.machine, chosen.t2), current.taskAt(chosen.machine, chosen.t1), k);
+                chosen.applyOn(current);
+                evaluator.load(current);
+                stats.accepted();
+            }
+
+            // a back jump or a perturbation may also reach a new best solution
+            if(evaluator.makespan() < bestMakespan) {
+                best = current.copy();
+                bestMakespan = evaluator.makespan();
+                assert best.toSchedule().checkValid();
+                stats.improved(k, bestMakespan);
+                listener.onIncumbent(best.toSchedule(), bestMakespan, System.currentTimeMillis());
+                stall = 0;
+                if(elites.size() == maxElite)
+                    elites.removeFirst();
+                elites.addLast(new Elite(best, neighbors(best)));
+                currentIsElite = true;
+            } else if(!stalled) {
+                stall++;
+            }
+        }
+
+        // the last iteration may have reached the lower bound
+        Result.ExitCause cause = bestMakespan <= lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, best.toSchedule(), cause, stats.stop());
+    }
+
+    /** All N5 moves of the critical blocks of the given solution. */
+    private static List<Swap> neighbors(ResourceOrder order) {
+        List<Swap> moves = new ArrayList<>();
+        for(Block block : order.criticalBlocks())
+            moves.addAll(block.neighbors());
+        return moves;
+    }
+
+    /**
+     * Restores the last elite solution and applies its best unexplored move, which is removed from the elite list.
+     * Returns the new current solution, loaded in the evaluator.
+     */
+    private static ResourceOrder backJump(Deque<Elite> elites, SwapEvaluator evaluator, TabuList taboo, int k,
+                                          SolverStats stats) {
+        Elite elite = elites.peekLast();
+        ResourceOrder order = elite.order.copy();
+        evaluator.load(order);
+        Swap chosen = null;
+        int chosenMakespan = Integer.MAX_VALUE;
+        for(Swap move : elite.unexplored) {
+            int makespan = evaluator.exact(move.machine, move.t1);
+            if(makespan < chosenMakespan) {
+                chosen = move;
+                chosenMakespan = makespan;
+            }
+        }
+        stats.evaluated(elite.unexplored.size());
+        elite.unexplored.remove(chosen);
+        if(elite.unexplored.isEmpty())
+            elites.removeLast();
+
+        taboo.add(order.taskAt(chosen.machine, chosen.t2), order.taskAt(chosen.machine, chosen.t1), k);
+        chosen.applyOn(order);
+        evaluator.load(order);
+        return order;
+    }
+
+    /** Applies a few random N5 moves to the solution. N5 moves never create a cycle. */
+    private static void perturb(ResourceOrder order, Random generator) {
+        int numMoves = 2 + generator.nextInt(order.instance.numMachines);
+        for(int i = 0 ; i < numMoves ; i++) {
+            List<Swap> moves = neighbors(order);
+            if(moves.isEmpty())
+                return;
+            moves.get(generator.nextInt(moves.size())).applyOn(order);
+        }
+    }
+}
@@ -1,158 +1,194 @@
 package jobshop.solvers;
 
+import jobshop.IncumbentListener;
 import jobshop.Instance;
+import jobshop.LowerBound;
 import jobshop.Result;
 import jobshop.Solver;
+import jobshop.SolverStats;
+import jobshop.encodings.Block;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Task;
+import jobshop.encodings.Swap;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class TabooSolver implements Solver {
 
-    static class Block {
-        /** machine on which the block is identified */
-        final int machine;
-        /** index of the first task of the block */
-        final int firstTask;
-        /** index of the last task of the block */
-        final int lastTask;
-
-        Block(int machine, int firstTask, int lastTask) {
-            this.machine = machine;
-            this.firstTask = firstTask;
-            this.lastTask = lastTask;
-        }
-
-        public String toString(){
-            return "( m : " + machine + "\t first: " + firstTask +  "\t last: " + lastTask + " )\n";
-        }
+    /**
+     * Smallest amount of work (candidates * operations of the instance) of each worker when the candidate list is
+     * split between several workers. Scoring a candidate costs 6 to 12 ns per operation (1.2 us on ft10, 11 us on
+     * ta80) while dispatching the chunks on the pool costs 10 to 30 us, so that a chunk must take about 60 us for the
+     * split to pay off. Smaller candidate lists are scored on the calling thread (see TabooScoringBenchmark).
+     */
+    static final int MIN_CHUNK_WORK = 8192;
+
+    /** number of threads scoring the neighbors of an iteration */
+    private final int numWorkers;
+    /** number of iterations during which the reverse of an accepted swap is taboo */
+    private final int tenure;
+
+    /** Creates a solver scoring neighbors on the calling thread. */
+    public TabooSolver() {
+        this(1);
     }
 
-    static class Swap {
-        // machine on which to perform the swap
-        final int machine;
-        // index of one task to be swapped
-        final int t1;
-        // index of the other task to be swapped
-        final int t2;
-
-        Swap(int machine, int t1, int t2) {
-            this.machine = machine;
-            this.t1 = t1;
-            this.t2 = t2;
-        }
+    public TabooSolver(int numWorkers) {
+        this(numWorkers, 4);
+    }
 
-        /** Apply this swap on the given resource order, transforming it into a new solution. */
-        public void applyOn(ResourceOrder order) {
-            Task temp = order.tasksByMachine[this.machine][this.t1];
-            order.tasksByMachine[this.machine][this.t1] = order.tasksByMachine[this.machine][this.t2];
-            order.tasksByMachine[this.machine][this.t2] = temp;
-        }
+    public TabooSolver(int numWorkers, int tenure) {
+        if(numWorkers < 1)
+            throw new IllegalArgumentException("At least one worker is needed, got " + numWorkers);
+        if(tenure < 1)
+            throw new IllegalArgumentException("Tabu tenure must be positive, got " + tenure);
+        this.numWorkers = numWorkers;
+        this.tenure = tenure;
     }
 
+    @Override
     public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, IncumbentListener.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, IncumbentListener listener) {
         //init
-        GreedyESTLRPT greedy = new GreedyESTLRPT();
-        Result greedyResult = greedy.solve(instance, deadline);
-        ResourceOrder currentOrder = new ResourceOrder(greedyResult.schedule);
+        SolverStats stats = new SolverStats();
+        // the shifting bottleneck is usually better than the priority rules, but may need a tenth of the time
+        ResourceOrder currentOrder = GifflerThompson.bestOfRules(instance);
+        long now = System.currentTimeMillis();
+        ResourceOrder bottleneckOrder = new ShiftingBottleneckSolver().sequence(instance, now + (deadline - now) / 10, stats);
+        if(bottleneckOrder.makespan() < currentOrder.makespan())
+            currentOrder = bottleneckOrder;
         ResourceOrder bestOrder = currentOrder.copy();
-        ResourceOrder temp;
-        List<Block> criticalBlocks;
-        List<Swap> neighboors;
+        SwapEvaluator evaluator = new SwapEvaluator(instance);
+        evaluator.load(currentOrder);
+        int bestMakespan = evaluator.makespan();
+        stats.improved(0, bestMakespan);
+        listener.onIncumbent(bestOrder.toSchedule(), bestMakespan, System.currentTimeMillis());
+        Result.ExitCause cause = Result.ExitCause.Blocked;
+        int lowerBound = LowerBound.of(instance);
+        // one scratch space per worker, so that they can all score moves of the current solution at the same time
+        SwapEvaluator.Scratch[] scratches = new SwapEvaluator.Scratch[numWorkers];
+        for(int w = 0 ; w < numWorkers ; w++)
+            scratches[w] = new SwapEvaluator.Scratch(instance);
+        ForkJoinPool pool = numWorkers > 1 ? new ForkJoinPool(numWorkers) : null;
+        List<Swap> neighboors = new ArrayList<>();
         int k = 0;
         int kBest = 0 ;
         int maxBest = 50;
         int maxIter = 3000;
-        int kOK = 4;
-        int[][] dureeTaboo = new int[instance.numTasks*instance.numJobs][instance.numTasks*instance.numJobs];
-        //Boucle principale
-        while ((deadline - System.currentTimeMillis() > 1) && k < maxIter && kBest < maxBest) {
-            k++;
-           // System.out.println("current solution makespan" + currentOrder.toSchedule().makespan() );
-            criticalBlocks = blocksOfCriticalPath(currentOrder);
-            //Liste des voisins de chaque block
-            for (Block block : criticalBlocks) {
-                neighboors = neighbors(block);
-                for (Swap neighboor : neighboors) {
-                    temp = currentOrder.copy();
-                    if (dureeTaboo[neighboor.t1][neighboor.t2] <= k){
-                        neighboor.applyOn(temp);
-                        currentOrder = temp;
-                        //System.out.println("current " + currentOrder.toSchedule().makespan() );
-                        if (currentOrder.toSchedule().makespan() < bestOrder.toSchedule().makespan()) {
-                            bestOrder = currentOrder;
-                            kBest = 0;
-                        }else{
-                            kBest++;
-                        }
-                        dureeTaboo[neighboor.t2][neighboor.t1]= k + kOK;
+        TabuList taboo = new TabuList(tenure);
+        try {
+            //Boucle principale
+            while ((listener.deadline(deadline) - System.currentTimeMillis() > 1) && k < maxIter && kBest < maxBest) {
+                if (bestMakespan <= lowerBound)
+                    break;
+                if (listener.stopRequested()) {
+                    cause = Result.ExitCause.Cancelled;
+                    break;
+                }
+                k++;
+                // full candidate list of the iteration
+                neighboors.clear();
+                for (Block block : currentOrder.criticalBlocks())
+                    neighboors.addAll(block.neighbors());
+                int numChunks = numChunks(neighboors.size(), instance.numOps, numWorkers);
+                int[] makespans = score(evaluator, neighboors, scratches, pool, numChunks);
+                stats.evaluated(neighboors.size());
+
+                // best admissible neighbor : not taboo, or better than the best solution found so far (aspiration).
+                // Ties are broken by the position in the candidate list, so the choice does not depend on the workers.
+                Swap chosen = null;
+                int chosenMakespan = Integer.MAX_VALUE;
+                for (int i = 0 ; i < neighboors.size() ; i++) {
+                    Swap neighboor = neighboors.get(i);
+                    int u = currentOrder.taskAt(neighboor.machine, neighboor.t1);
+                    int v = currentOrder.taskAt(neighboor.machine, neighboor.t2);
+                    boolean admissible = !taboo.isTabu(u, v, k) || makespans[i] < bestMakespan;
+                    if (admissible && makespans[i] < chosenMakespan) {
+                        chosen = neighboor;
+                        chosenMakespan = makespans[i];
                     }
                 }
+                if (chosen == null) {
+                    // all neighbors are taboo
+                    break;
+                }
+                // the move is accepted : only now the solution is fully recomputed.
+                // Swapping back the two operations is then taboo.
+                taboo.add(currentOrder.taskAt(chosen.machine, chosen.t2), currentOrder.taskAt(chosen.machine, chosen.t1), k);
+                chosen.applyOn(currentOrder);
+                evaluator.load(currentOrder);
+                stats.accepted();
+                if (evaluator.makespan() < bestMakespan) {
+                    bestOrder = currentOrder.copy();
+                    bestMakespan = evaluator.makespan();
+                    assert bestOrder.toSchedule().checkValid();
+                    stats.improved(k, bestMakespan);
+                    listener.onIncumbent(bestOrder.toSchedule(), bestMakespan, System.currentTimeMillis());
+                    kBest = 0;
+                } else {
+                    kBest++;
+                }
             }
+        } finally {
+            if (pool != null)
+                pool.shutdown();
         }
-      //  System.out.println("BEST solution makespan" + bestOrder.toSchedule().makespan() );
+        // the last iteration may have reached the lower bound
+        if (bestMakespan <= lowerBound)
+            cause = Result.ExitCause.ProvedOptimal;
 
-        return new Result(instance, bestOrder.toSchedule(), Result.ExitCause.Blocked);
+        return new Result(instance, bestOrder.toSchedule(), cause, stats.stop());
     }
 
-    private String printtab(int[][] tab, int max){
-        String result = "" ;
-        for(int i = 0; i< max; i++){
-            for(int j = 0; j<max;j++)   result = result+ tab[i][j] + "\t";
-            result = result+ "\n";
-
-        }
-        return result;
+    /** Number of workers among which a candidate list is split, so that each of them gets at least MIN_CHUNK_WORK. */
+    static int numChunks(int numCandidates, int numOps, int numWorkers) {
+        long work = (long) numCandidates * numOps;
+        return (int) Math.max(1, Math.min(numWorkers, work / MIN_CHUNK_WORK));
     }
 
-
-    List<Block> blocksOfCriticalPath(ResourceOrder order) {
-        List<Task> crititalPath = order.toSchedule().criticalPath();
-//   System.out.println("CRITICAL PATH :" +crititalPath);
-        List<Block> blocksofpath = new ArrayList<Block>();
-        Task current, next ;
-        for(int i = 0; i<crititalPath.size()-1;i++){
-            current = crititalPath.get(i);
-            next = crititalPath.get(i+1);
-            if(blocksofpath.size() != 0  && blocksofpath.get(blocksofpath.size()-1).machine == order.instance.machine(current)) {
-                Block newBlock = new Block(order.instance.machine(current), blocksofpath.get(blocksofpath.size() - 1).firstTask, taskIndex(order, current));
-                blocksofpath.remove(blocksofpath.size() - 1);
-                blocksofpath.add(newBlock);
-            }else{
-                if(order.instance.machine(current) == order.instance.machine(next)){
-                    blocksofpath.add(new Block(order.instance.machine(current), taskIndex(order,current),taskIndex(order,next)));
-                }
-            }
+    /**
+     * Exact makespan of each neighbor of the solution loaded in the evaluator.
+     * The candidates are split in numChunks contiguous chunks scored on the pool, each one with its own scratch space.
+     */
+    static int[] score(SwapEvaluator evaluator, List<Swap> neighboors, SwapEvaluator.Scratch[] scratches, ForkJoinPool pool,
+                       int numChunks) {
+        int[] makespans = new int[neighboors.size()];
+        numChunks = Math.min(numChunks, neighboors.size());
+        if (pool == null || numChunks < 2) {
+            scoreRange(evaluator, neighboors, makespans, 0, neighboors.size(), scratches[0]);
+            return makespans;
         }
-        current = crititalPath.get(crititalPath.size()-1);
-        //System.out.println("BLOCK OF CRITICAL PATH :" +blocksofpath);
-        return blocksofpath;
+        List<Callable<Void>> chunks = new ArrayList<>(numChunks);
+        for (int c = 0 ; c < numChunks ; c++) {
+            int from = c * neighboors.size() / numChunks;
+            int to = (c + 1) * neighboors.size() / numChunks;
+            SwapEvaluator.Scratch scratch = scratches[c];
+            chunks.add(() -> {
+                scoreRange(evaluator, neighboors, makespans, from, to, scratch);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> chunk : pool.invokeAll(chunks))
+                chunk.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Neighborhood evaluation failed", e);
+        }
+        return makespans;
     }
 
-    private int taskIndex(ResourceOrder order, Task t){
-        int i = 0 ;
-        while(i<order.instance.numJobs && !(order.tasksByMachine[order.instance.machine(t)][i]).equals(t))
-            i++;
-        if (i != order.instance.numJobs) return i;
-        else throw new UnsupportedOperationException("Unknown Task");
-    }
-    /** For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood */
-    List<Swap> neighbors(Block block) {
-        List<Swap> neighboors = new ArrayList<Swap>();
-        if(block.lastTask-block.firstTask == 1){
-            Swap newSwap = new Swap(block.machine, block.firstTask, block.lastTask);
-            neighboors.add(newSwap);
-        }else if(block.lastTask-block.firstTask>1){
-            Swap newSwap1 = new Swap(block.machine, block.firstTask, block.firstTask+1);
-            Swap newSwap2 = new Swap(block.machine, block.lastTask-1, block.lastTask);
-            neighboors.add(newSwap1);
-            neighboors.add(newSwap2);
+    private static void scoreRange(SwapEvaluator evaluator, List<Swap> neighboors, int[] makespans, int from, int to, SwapEvaluator.Scratch scratch) {
+        for (int i = from ; i < to ; i++) {
+            Swap neighboor = neighboors.get(i);
+            makespans[i] = evaluator.exact(neighboor.machine, neighboor.t1, scratch);
         }
-        return neighboors;
     }
-
-
 }
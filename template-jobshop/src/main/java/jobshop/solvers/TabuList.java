@@ -0,0 +1,117 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/**
+ * Tabu memory of the TabooSolver : remembers for a few iterations the ordered pairs of operations (a, b) such that
+ * swapping a and b (a being just before b on their machine) is forbidden.
+ *
+ * Pairs are stored in a small open-addressing hash table, together with the iteration at which they stop being
+ * taboo, and in a ring buffer in insertion order so that expired pairs can be removed from the table.
+ * Memory use is O(tenure) and both lookups and insertions take constant time.
+ */
+final class TabuList {
+
+    private static final long EMPTY = -1L;
+
+    private final int tenure;
+
+    // open-addressing table (linear probing) : key of the pair and iteration at which it stops being taboo
+    private final long[] keys;
+    private final int[] expiries;
+    private final int mask;
+
+    // pairs in insertion order, which is also the order of their expiry
+    private final long[] ring;
+    private final int[] ringExpiries;
+    private int ringStart = 0;
+    private int ringSize = 0;
+
+    TabuList(int tenure) {
+        if(tenure < 1)
+            throw new IllegalArgumentException("Tabu tenure must be positive, got " + tenure);
+        this.tenure = tenure;
+        // at most `tenure+1` pairs are stored, keep the load factor under 1/2
+        int capacity = Integer.highestOneBit(4 * (tenure + 1) - 1);
+        this.keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        this.expiries = new int[capacity];
+        this.mask = capacity - 1;
+        this.ring = new long[tenure + 1];
+        this.ringExpiries = new int[tenure + 1];
+    }
+
+    private static long key(int a, int b) {
+        return ((long) a << 32) | b;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    /** Index of the key in the table, or of the empty slot where it would be inserted. */
+    private int find(long key) {
+        int i = slot(key);
+        while(keys[i] != EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /** Returns true if swapping operation a with operation b (its successor on their machine) is taboo. */
+    boolean isTabu(int a, int b, int iteration) {
+        int i = find(key(a, b));
+        return keys[i] != EMPTY && expiries[i] > iteration;
+    }
+
+    /** Forbids swapping operation a with operation b (its successor on their machine) for the next iterations. */
+    void add(int a, int b, int iteration) {
+        expire(iteration);
+        if(ringSize == ring.length) {
+            // more than one pair added per iteration, the oldest one is dropped early
+            pop();
+        }
+        long key = key(a, b);
+        int i = find(key);
+        keys[i] = key;
+        expiries[i] = iteration + tenure;
+        int last = (ringStart + ringSize) % ring.length;
+        ring[last] = key;
+        ringExpiries[last] = iteration + tenure;
+        ringSize++;
+    }
+
+    /** Removes all pairs that are not taboo anymore at the given iteration. */
+    private void expire(int iteration) {
+        while(ringSize > 0 && ringExpiries[ringStart] <= iteration)
+            pop();
+    }
+
+    /** Removes the oldest pair of the ring, and from the table unless it was added again since. */
+    private void pop() {
+        long key = ring[ringStart];
+        int i = find(key);
+        if(keys[i] == key && expiries[i] == ringExpiries[ringStart])
+            remove(i);
+        ringStart = (ringStart + 1) % ring.length;
+        ringSize--;
+    }
+
+    /** Removes the entry at index i of the table, shifting back the following entries of its probe sequence. */
+    private void remove(int i) {
+        int j = i;
+        while(true) {
+            j = (j + 1) & mask;
+            if(keys[j] == EMPTY)
+                break;
+            int home = slot(keys[j]);
+            // keys[j] can fill the hole at i only if its home slot is not in ]i, j]
+            if(i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                expiries[i] = expiries[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+    }
+}
@@ -0,0 +1,93 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+public class InstanceTests {
+
+    @Test
+    public void testFromFile() throws IOException {
+        // header followed by a comment, no newline at the end of the file
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+        assert instance.numJobs == 2;
+        assert instance.numTasks == 3;
+        assert instance.machine(0, 0) == 0 && instance.duration(0, 0) == 3;
+        assert instance.machine(1, 2) == 2 && instance.duration(1, 2) == 4;
+        assert instance.remainingDuration(0, 0) == 8;
+
+        Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+        assert ft06.numJobs == 6 && ft06.numTasks == 6;
+        assert ft06.machine(5, 5) == 2 && ft06.duration(5, 5) == 1;
+    }
+
+    @Test
+    public void testMalformedFiles() throws IOException {
+        Path file = Files.createTempFile("instance", "");
+        try {
+            for(String content : new String[] { "2 1\n0 3\n", "1 2\n0 3 1 x\n", "1 2\n0 3 2 1\n" }) {
+                Files.write(file, content.getBytes());
+                boolean rejected = false;
+                try {
+                    Instance.fromFile(file);
+                } catch (IOException e) {
+                    rejected = true;
+                }
+                assert rejected : content;
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testNonAsciiComments() throws IOException {
+        Path file = Files.createTempFile("instance", "");
+        try {
+            // bytes above 0x7F in comments (0xE9 and 0xFF in Latin-1) must not be read as the end of the file
+            Files.write(file, "# \u00e9t\u00e9\n1 2 # \u00ff\n0 3 1 4\n".getBytes(StandardCharsets.ISO_8859_1));
+            Instance instance = Instance.fromFile(file);
+            assert instance.numJobs == 1 && instance.numTasks == 2;
+            assert instance.duration(1) == 4;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testBinaryCache() throws IOException {
+        Path cache = Files.createTempDirectory("instances");
+        Path file = cache.resolve("tiny");
+        try {
+            for(String name : new String[] { "aaa1", "ft10", "ta01" }) {
+                Path path = Paths.get("instances/", name);
+                Instance text = Instance.fromFile(path);
+                Instance built = Instance.load(path, cache);
+                Instance cached = Instance.load(path, cache);
+                assert Files.exists(cache.resolve(name + ".bin"));
+                for(Instance i : new Instance[] { built, cached }) {
+                    assert i.numJobs == text.numJobs && i.numTasks == text.numTasks;
+                    for(int op = 0 ; op < text.numOps ; op++)
+                        assert i.machine(op) == text.machine(op) && i.duration(op) == text.duration(op);
+                }
+            }
+
+            // a modified file is read again
+            Files.write(file, "1 2\n0 5 1 6\n".getBytes());
+            assert Instance.load(file, cache).duration(1) == 6;
+            Files.write(file, "1 2\n0 5 1 7\n".getBytes());
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+            assert Instance.load(file, cache).duration(1) == 7;
+            assert Instance.fromBinaryFile(cache.resolve("tiny.bin")).duration(1) == 7;
+        } finally {
+            for(Path p : Files.list(cache).toArray(Path[]::new))
+                Files.delete(p);
+            Files.delete(cache);
+        }
+    }
+}
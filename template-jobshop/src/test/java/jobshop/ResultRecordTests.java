@@ -0,0 +1,177 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResultRecordTests {
+
+    private static ResultRecord record(String solver, int makespan, int lowerBound, long cpuMs,
+                                       Result.ExitCause cause, long evaluations) {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        if(evaluations > 0) {
+            counters.put("evaluations", evaluations);
+            counters.put("moves", evaluations / 10);
+        }
+        return new ResultRecord("ft10", solver, 0, makespan, 930, lowerBound, cpuMs + 1, cpuMs, cause, counters);
+    }
+
+    private static void assertSame(ResultRecord a, ResultRecord b) {
+        assert a.instance.equals(b.instance) && a.solver.equals(b.solver) && a.run == b.run;
+        assert a.makespan == b.makespan && a.bestKnown == b.bestKnown && a.lowerBound == b.lowerBound;
+        assert a.wallMs == b.wallMs && a.cpuMs == b.cpuMs && a.cause == b.cause;
+        assert a.counters.equals(b.counters) : a.counters + " " + b.counters;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        ResultRecord[] records = {
+                record("taboo", 951, 930, 1000, Result.ExitCause.Timeout, 123456),
+                // unknown lower bound : lb_gap is NaN in CSV and null in JSON
+                record("sb", 1002, 0, 42, Result.ExitCause.Blocked, 0),
+                // better than the best known result and than the (wrong) lower bound : negative gaps
+                record("bnb", 920, 925, 7, Result.ExitCause.ProvedOptimal, 5),
+        };
+        for(ResultRecord r : records) {
+            assert r.toJson().contains("\"lb_gap\":" + (r.lowerBound == 0 ? "null" : ""));
+            assertSame(r, ResultRecord.parse(r.toCsv()));
+            assertSame(r, ResultRecord.parse(r.toJson()));
+            assertSame(r, ResultRecord.parse("  " + r.format(ResultRecord.Format.jsonl) + "\n"));
+        }
+        assert records[2].gap() < 0 && records[2].lowerBoundGap() < 0;
+        assert ResultRecord.parse(ResultRecord.CSV_HEADER) == null;
+        assert ResultRecord.parse("  ") == null;
+    }
+
+    @Test
+    public void testLegacyCsv() {
+        // written before the lower_bound and lb_gap columns
+        ResultRecord r = ResultRecord.parse("ft10,taboo,2,951,930,2.26,1001,1000,Timeout,evaluations=123;moves=4");
+        assert r.makespan == 951 && r.bestKnown == 930 && r.lowerBound == 0;
+        assert r.wallMs == 1001 && r.cpuMs == 1000 && r.cause == Result.ExitCause.Timeout;
+        assert r.counters.get("evaluations") == 123 && r.counters.get("moves") == 4;
+        assert Double.isNaN(r.lowerBoundGap());
+
+        r = ResultRecord.parse("ft10,sb,0,1002,930,7.74,50,42,Blocked,");
+        assert r.counters.isEmpty();
+    }
+
+    @Test
+    public void testMalformedRecords() {
+        for(String line : new String[] { "ft10,taboo,0,951", "ft10,taboo,0,x,930,2.26,1001,1000,Timeout,",
+                "ft10,taboo,0,951,930,2.26,1001,1000,Finished,", "ft10,taboo,0,951,930,2.26,1001,1000,Timeout,moves",
+                "{\"instance\":\"ft10\",\"solver\":\"taboo\"}" }) {
+            boolean rejected = false;
+            try {
+                ResultRecord.parse(line);
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            assert rejected : line;
+        }
+    }
+
+    /** Writes the records in a temporary file, in the given format. */
+    private static Path write(ResultRecord.Format format, ResultRecord... records) throws IOException {
+        Path file = Files.createTempFile("results", "." + format);
+        List<String> lines = new ArrayList<>();
+        if(format == ResultRecord.Format.csv)
+            lines.add(ResultRecord.CSV_HEADER);
+        for(ResultRecord r : records)
+            lines.add(r.format(format));
+        Files.write(file, lines);
+        return file;
+    }
+
+    /** Compares the two sets of records and returns the printed lines. */
+    private static List<String> compare(ResultRecord[] base, ResultRecord[] candidate, int expectedRegressions)
+            throws IOException {
+        Path b = write(ResultRecord.Format.csv, base);
+        Path c = write(ResultRecord.Format.jsonl, candidate);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int regressions = ResultComparison.compare(b, c, 10, new PrintStream(bytes, true, "UTF-8"));
+            List<String> lines = Arrays.asList(new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+            assert regressions == expectedRegressions : lines;
+            assert lines.get(lines.size() - 1).equals(regressions + " regression(s)") : lines;
+            return lines;
+        } finally {
+            Files.delete(b);
+            Files.delete(c);
+        }
+    }
+
+    /** Line of the comparison of the given solver. */
+    private static String line(List<String> lines, String solver) {
+        for(String line : lines)
+            if(line.startsWith("ft10     " + solver + " "))
+                return line;
+        throw new AssertionError(solver + " not in " + lines);
+    }
+
+    @Test
+    public void testCompare() throws IOException {
+        // runs stopping on their own : compared on their CPU time
+        ResultRecord sbBase = record("sb", 1000, 930, 100, Result.ExitCause.Blocked, 0);
+        // runs stopped by the deadline : compared on their CPU time per million evaluations
+        ResultRecord tabooBase = record("taboo", 950, 930, 1000, Result.ExitCause.Timeout, 1000000);
+        ResultRecord saBase = record("sa", 960, 930, 1000, Result.ExitCause.Timeout, 2000000);
+
+        // same CPU time for taboo but half as many evaluations, sa is faster and sb as fast
+        List<String> lines = compare(new ResultRecord[] { sbBase, tabooBase, saBase }, new ResultRecord[] {
+                record("sb", 1000, 930, 104, Result.ExitCause.Blocked, 0),
+                record("taboo", 950, 930, 1000, Result.ExitCause.Timeout, 500000),
+                record("sa", 960, 930, 1000, Result.ExitCause.Timeout, 4000000),
+                record("random", 1200, 930, 1000, Result.ExitCause.Timeout, 10) }, 1);
+        assert line(lines, "sb").matches(".* ms *$") : lines;
+        assert line(lines, "taboo").matches(".* 2000\\.0 +1000\\.0 +100\\.0 ms/M +REGRESSION$") : lines;
+        assert line(lines, "sa").matches(".* 250\\.0 +500\\.0 +-50\\.0 ms/M *$") : lines;
+        // not in the base file
+        assert lines.stream().noneMatch(l -> l.contains("random")) : lines;
+
+        // CPU time above the threshold, and a larger makespan with the same CPU time
+        lines = compare(new ResultRecord[] { sbBase, tabooBase }, new ResultRecord[] {
+                record("sb", 1000, 930, 150, Result.ExitCause.Blocked, 0),
+                record("taboo", 951, 930, 1000, Result.ExitCause.Timeout, 1000000) }, 2);
+        assert line(lines, "sb").matches(".* 150\\.0 +100\\.0 +50\\.0 ms +REGRESSION$") : lines;
+        assert line(lines, "taboo").endsWith("REGRESSION") : lines;
+
+        // a run interrupted in only one of the files switches the pair to the per-evaluation mode,
+        // short runs are never slower
+        lines = compare(new ResultRecord[] { sbBase, record("bnb", 930, 930, 2, Result.ExitCause.ProvedOptimal, 0) },
+                new ResultRecord[] { record("sb", 1000, 930, 100, Result.ExitCause.Cancelled, 1000),
+                        record("bnb", 930, 930, 4, Result.ExitCause.ProvedOptimal, 0) }, 0);
+        assert line(lines, "sb").contains("ms/M") : lines;
+        assert line(lines, "bnb").matches(".* 100\\.0 ms *$") : lines;
+    }
+
+    @Test
+    public void testCompareMalformedFile() throws IOException {
+        Path base = write(ResultRecord.Format.csv, record("sb", 1000, 930, 100, Result.ExitCause.Blocked, 0));
+        Path candidate = Files.createTempFile("results", ".csv");
+        try {
+            Files.write(candidate, Arrays.asList(ResultRecord.CSV_HEADER, "", "ft10,sb,0,1000"));
+            String message = null;
+            try {
+                ResultComparison.compare(base, candidate, 10, new PrintStream(new ByteArrayOutputStream()));
+            } catch (IllegalArgumentException e) {
+                message = e.getMessage();
+            }
+            assert message != null && message.startsWith(candidate + ":3: ") && message.endsWith("ft10,sb,0,1000")
+                    : message;
+        } finally {
+            Files.delete(base);
+            Files.delete(candidate);
+        }
+    }
+}
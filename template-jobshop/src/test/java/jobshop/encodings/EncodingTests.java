@@ -72,4 +72,74 @@ public class EncodingTests {
         assert result.schedule.makespan() == sched.makespan(); // should have the same makespan
     }
 
+    @Test
+    public void testResourceOrder() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+
+        // numéro de jobs : 1 2 2 1 1 2 (cf exercices)
+        JobNumbers enc = new JobNumbers(instance);
+        enc.jobs[enc.nextToSet++] = 0;
+        enc.jobs[enc.nextToSet++] = 1;
+        enc.jobs[enc.nextToSet++] = 1;
+        enc.jobs[enc.nextToSet++] = 0;
+        enc.jobs[enc.nextToSet++] = 0;
+        enc.jobs[enc.nextToSet++] = 1;
+
+        // decoding the resource order of a schedule should give back the same schedule
+        Schedule sched = enc.toSchedule();
+        ResourceOrder order = new ResourceOrder(sched);
+        Schedule decoded = order.toSchedule();
+        assert decoded != null;
+        assert decoded.isValid();
+        assert decoded.makespan() == sched.makespan();
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                assert decoded.startTime(j, t) == sched.startTime(j, t);
+            }
+        }
+
+        // machine 0 : (0,0) (1,1), machine 1 : (1,0) (0,1)
+        // reversing both machines creates a cycle (1,1) -> (0,0) -> (0,1) -> (1,0) -> (1,1)
+        ResourceOrder cyclic = new ResourceOrder(instance);
+        cyclic.addTask(instance.op(1, 1));
+        cyclic.addTask(instance.op(0, 0));
+        cyclic.addTask(instance.op(0, 1));
+        cyclic.addTask(instance.op(1, 0));
+        cyclic.addTask(instance.op(0, 2));
+        cyclic.addTask(instance.op(1, 2));
+        assert cyclic.toSchedule() == null;
+        assert cyclic.makespan() == Integer.MAX_VALUE;
+
+        // a copy is independent from the original and modifying it invalidates its cached schedule
+        ResourceOrder copy = cyclic.copy();
+        copy.swap(0, 0, 1);
+        copy.swap(1, 0, 1);
+        assert copy.toSchedule() != null;
+        assert copy.toSchedule().isValid();
+        assert cyclic.toSchedule() == null;
+    }
+
+    @Test
+    public void testScheduleValidation() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+
+        // schedule of the job numbers 1 2 2 1 1 2 (cf exercices)
+        int[][] times = { {0, 3, 6}, {0, 3, 8} };
+        Schedule sched = new Schedule(instance, times);
+        assert sched.isValid();
+        assert sched.findViolation() == null;
+
+        // task (1,1) is moved before the end of task (1,0)
+        times[1][1] = 1;
+        sched = new Schedule(instance, times);
+        assert !sched.isValid();
+        assert sched.findViolation().contains("job predecessor");
+
+        // tasks (0,0) and (1,1) both use machine 0 during [3, 5[
+        times = new int[][] { {3, 6, 9}, {0, 3, 9} };
+        sched = new Schedule(instance, times);
+        assert !sched.isValid();
+        assert sched.findViolation().contains("overlap on machine 0");
+    }
+
 }
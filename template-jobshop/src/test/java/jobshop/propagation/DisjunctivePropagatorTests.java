@@ -0,0 +1,87 @@
+package jobshop.propagation;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.solvers.GreedyESTLRPT;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class DisjunctivePropagatorTests {
+
+    @Test
+    public void testSolutionInWindows() throws IOException {
+        for(String name : new String[] { "ft06", "ft10", "la21", "ta01" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            Schedule schedule = new GreedyESTLRPT().solve(instance, System.currentTimeMillis() + 10_000).schedule;
+            DisjunctivePropagator propagator = new DisjunctivePropagator(instance, schedule.makespan());
+            assert propagator.propagate();
+
+            // fixing the order of the solution on the first machines keeps it in the windows
+            for(int m = 0 ; m < instance.numMachines / 2 ; m++) {
+                for(int a = 0 ; a < instance.numOps ; a++) {
+                    for(int b = 0 ; b < instance.numOps ; b++) {
+                        if(a != b && instance.machine(a) == m && instance.machine(b) == m
+                                && schedule.startTime(a) < schedule.startTime(b))
+                            assert propagator.addPrecedence(a, b);
+                    }
+                }
+                assert propagator.propagate();
+            }
+            for(int op = 0 ; op < instance.numOps ; op++) {
+                assert propagator.head(op) <= schedule.startTime(op);
+                assert schedule.endTime(op) <= propagator.latestEnd(op);
+            }
+        }
+    }
+
+    @Test
+    public void testInfeasibleHorizon() throws IOException {
+        // the machine bound of la15 is its optimal makespan, 1207
+        Instance la15 = Instance.fromFile(Paths.get("instances/la15"));
+        assert !new DisjunctivePropagator(la15, 1206).propagate();
+        assert new DisjunctivePropagator(la15, 1207).propagate();
+    }
+
+    @Test
+    public void testRestore() throws IOException {
+        Instance ft10 = Instance.fromFile(Paths.get("instances/ft10"));
+        DisjunctivePropagator propagator = new DisjunctivePropagator(ft10, 1000);
+        assert propagator.propagate();
+        int[] heads = new int[ft10.numOps];
+        int[] tails = new int[ft10.numOps];
+        boolean[][] precedes = new boolean[ft10.numOps][ft10.numOps];
+        for(int op = 0 ; op < ft10.numOps ; op++) {
+            heads[op] = propagator.head(op);
+            tails[op] = propagator.tail(op);
+            for(int other = 0 ; other < ft10.numOps ; other++) {
+                if(other != op && ft10.machine(other) == ft10.machine(op))
+                    precedes[op][other] = propagator.precedes(op, other);
+            }
+        }
+
+        // tasks of the machine of the first task of job 0, in the order of their jobs
+        int machine = ft10.machine(0);
+        int mark = propagator.save();
+        int previous = -1;
+        for(int job = 0 ; job < ft10.numJobs ; job++) {
+            int op = ft10.op(job, ft10.task_with_machine(job, machine));
+            if(previous != -1 && !propagator.addPrecedence(previous, op))
+                break;
+            previous = op;
+        }
+        propagator.propagate();
+        propagator.restore(mark);
+
+        for(int op = 0 ; op < ft10.numOps ; op++) {
+            assert propagator.head(op) == heads[op];
+            assert propagator.tail(op) == tails[op];
+            for(int other = 0 ; other < ft10.numOps ; other++) {
+                if(other != op && ft10.machine(other) == ft10.machine(op))
+                    assert propagator.precedes(op, other) == precedes[op][other];
+            }
+        }
+        assert propagator.propagate();
+    }
+}
@@ -0,0 +1,51 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class BranchAndBoundTests {
+
+    @Test
+    public void testProvedOptimal() throws IOException {
+        // the initial solution of BasicSolver is far from optimal, so that the tree has to be explored
+        for(int numWorkers : new int[] { 1, 2 }) {
+            Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+            Result result = new BranchAndBoundSolver(numWorkers, new BasicSolver())
+                    .solve(ft06, System.currentTimeMillis() + 60_000);
+            assert result.cause == Result.ExitCause.ProvedOptimal;
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() == 55;
+
+            Instance la02 = Instance.fromFile(Paths.get("instances/la02"));
+            result = new BranchAndBoundSolver(numWorkers, new BasicSolver())
+                    .solve(la02, System.currentTimeMillis() + 60_000);
+            assert result.cause == Result.ExitCause.ProvedOptimal;
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() == 655;
+        }
+    }
+
+    @Test
+    public void testTimeout() throws IOException {
+        Instance ft10 = Instance.fromFile(Paths.get("instances/ft10"));
+        Result result = new BranchAndBoundSolver(1).solve(ft10, System.currentTimeMillis() + 200);
+        assert result.cause == Result.ExitCause.Timeout;
+        assert result.schedule.isValid();
+
+        // on a 30x20 instance, building the children of a node propagates dozens of states and takes longer than the
+        // margin : the deadline must be checked while building them, and while backtracking
+        Instance ta41 = Instance.fromFile(Paths.get("instances/ta41"));
+        for(int numWorkers : new int[] { 1, 2 }) {
+            long deadline = System.currentTimeMillis() + 1000;
+            result = new BranchAndBoundSolver(numWorkers).solve(ta41, deadline);
+            long overrun = System.currentTimeMillis() - deadline;
+            assert result.cause == Result.ExitCause.Timeout;
+            assert result.schedule.isValid();
+            assert overrun <= 100 : "deadline overrun of " + overrun + "ms";
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.encodings.ResourceOrder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class GifflerThompsonTests {
+
+    private static final PriorityRule[] RULES = {
+            PriorityRule.SPT, PriorityRule.LRPT, PriorityRule.MWKR, PriorityRule.FIFO, PriorityRule.RANDOM,
+            PriorityRule.weighted(new double[] { 1, 0.5 }, PriorityRule.SPT, PriorityRule.MWKR)
+    };
+
+    /**
+     * Checks the schedule of the order against its mode : in an active schedule, no task fits in an idle period of its
+     * machine before its start, so it cannot start earlier without delaying another task. In a non-delay schedule,
+     * a machine is never idle while one of its tasks is ready.
+     */
+    private static void checkMode(Instance instance, ResourceOrder order, GifflerThompson.Mode mode) {
+        for(int m = 0 ; m < instance.numMachines ; m++)
+            assert order.nextFreeSlot[m] == instance.numJobs;
+        Schedule schedule = order.toSchedule();
+        assert schedule != null && schedule.isValid();
+
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int op = order.taskAt(m, i);
+                int ready = instance.taskOf(op) == 0 ? 0 : schedule.endTime(op - 1);
+                // idle periods [idleStart, idleEnd[ of the machine before the task
+                int idleStart = 0;
+                for(int k = 0 ; k < i ; k++) {
+                    int other = order.taskAt(m, k);
+                    int idleEnd = schedule.startTime(other);
+                    int earliest = Math.max(idleStart, ready);
+                    if(mode == GifflerThompson.Mode.NON_DELAY)
+                        assert earliest >= idleEnd : "machine " + m + " idle at " + earliest + " while " + op + " is ready";
+                    assert earliest + instance.duration(op) > idleEnd : op + " fits at " + earliest + " on machine " + m;
+                    idleStart = schedule.endTime(other);
+                }
+                // and the task itself starts as soon as its job and its machine are available
+                assert schedule.startTime(op) == Math.max(idleStart, ready);
+            }
+        }
+    }
+
+    @Test
+    public void testRulesAndModes() throws IOException {
+        Random random = new Random(0);
+        for(String name : new String[] { "ft06", "ft10", "la21", "ta21" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            int best = GifflerThompson.bestOfRules(instance).makespan();
+            for(GifflerThompson.Mode mode : GifflerThompson.Mode.values()) {
+                for(PriorityRule rule : RULES) {
+                    GifflerThompson generator = new GifflerThompson(instance, mode, rule);
+                    ResourceOrder order = generator.generate();
+                    checkMode(instance, order, mode);
+                    // deterministic, also when the generator is reused
+                    if(rule != PriorityRule.RANDOM)
+                        assert generator.generate().makespan() == order.makespan();
+                    // the four first rules are the ones of bestOfRules
+                    if(rule == RULES[0] || rule == RULES[1] || rule == RULES[2] || rule == RULES[3])
+                        assert order.makespan() >= best;
+
+                    for(int candidates : new int[] { 2, 5 })
+                        checkMode(instance, generator.generate(random, candidates), mode);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCandidates() throws IOException {
+        Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+        boolean rejected = false;
+        try {
+            new GifflerThompson(ft06, GifflerThompson.Mode.ACTIVE, PriorityRule.SPT).generate(new Random(0), 0);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assert rejected;
+    }
+}
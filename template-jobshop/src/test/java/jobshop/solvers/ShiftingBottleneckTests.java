@@ -0,0 +1,76 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class ShiftingBottleneckTests {
+
+    @Test
+    public void testCarlierOptimal() {
+        Random random = new Random(0);
+        Carlier carlier = new Carlier(7);
+        int[] sequence = new int[7];
+        for(int t = 0 ; t < 500 ; t++) {
+            int n = 1 + random.nextInt(7);
+            int[] heads = new int[n];
+            int[] durations = new int[n];
+            int[] tails = new int[n];
+            for(int i = 0 ; i < n ; i++) {
+                heads[i] = random.nextInt(30);
+                durations[i] = 1 + random.nextInt(10);
+                tails[i] = random.nextInt(30);
+            }
+            int makespan = carlier.solve(heads, durations, tails, n, Integer.MAX_VALUE, sequence);
+            assert makespan == makespan(heads, durations, tails, sequence, n);
+            int[] permutation = new int[n];
+            for(int i = 0 ; i < n ; i++)
+                permutation[i] = i;
+            assert makespan == best(heads, durations, tails, permutation, 0);
+        }
+    }
+
+    @Test
+    public void testValid() throws IOException {
+        for(String name : new String[] { "ft06", "ft10", "la21", "ta21" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            Result result = new ShiftingBottleneckSolver().solve(instance, System.currentTimeMillis() + 10_000);
+            assert result.schedule.isValid();
+            // the greedy rules give 1074 on ft10
+            if(name.equals("ft10"))
+                assert result.schedule.makespan() <= 1074;
+        }
+    }
+
+    private static int makespan(int[] heads, int[] durations, int[] tails, int[] sequence, int n) {
+        int time = 0;
+        int makespan = 0;
+        for(int k = 0 ; k < n ; k++) {
+            int i = sequence[k];
+            time = Math.max(time, heads[i]) + durations[i];
+            makespan = Math.max(makespan, time + tails[i]);
+        }
+        return makespan;
+    }
+
+    /** Smallest makespan of the orders of the tasks that start with permutation[0..k). */
+    private static int best(int[] heads, int[] durations, int[] tails, int[] permutation, int k) {
+        int n = permutation.length;
+        if(k == n)
+            return makespan(heads, durations, tails, permutation, n);
+        int best = Integer.MAX_VALUE;
+        for(int i = k ; i < n ; i++) {
+            int tmp = permutation[k];
+            permutation[k] = permutation[i];
+            permutation[i] = tmp;
+            best = Math.min(best, best(heads, durations, tails, permutation, k + 1));
+            permutation[i] = permutation[k];
+            permutation[k] = tmp;
+        }
+        return best;
+    }
+}
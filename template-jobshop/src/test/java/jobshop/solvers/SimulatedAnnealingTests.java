@@ -0,0 +1,54 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.encodings.JobNumbers;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class SimulatedAnnealingTests {
+
+    @Test
+    public void testEvaluator() throws IOException {
+        Random random = new Random(0);
+        for(String name : new String[] { "ft06", "la21", "ta41" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            JobNumbers solution = new JobNumbers(GifflerThompson.bestOfRules(instance).toSchedule());
+            JobNumbersEvaluator evaluator = new JobNumbersEvaluator(instance);
+            evaluator.load(solution);
+            assert evaluator.makespan() == solution.toSchedule().makespan();
+
+            JobNumbers moved = new JobNumbers(instance);
+            for(int k = 0 ; k < 2000 ; k++) {
+                int from = random.nextInt(instance.numOps);
+                int to = random.nextInt(instance.numOps);
+                if(from == to)
+                    continue;
+                int makespan = random.nextBoolean() ? evaluator.swap(from, to) : evaluator.insert(from, to);
+                evaluator.copyTo(moved);
+                assert makespan == moved.toSchedule().makespan();
+                if(random.nextBoolean())
+                    evaluator.accept();
+                else
+                    evaluator.reject();
+                evaluator.copyTo(moved);
+                assert evaluator.makespan() == moved.toSchedule().makespan();
+            }
+        }
+    }
+
+    @Test
+    public void testValid() throws IOException {
+        Instance ft10 = Instance.fromFile(Paths.get("instances/ft10"));
+        for(int numChains : new int[] { 1, 2 }) {
+            Result result = new SimulatedAnnealingSolver(numChains).solve(ft10, System.currentTimeMillis() + 500);
+            assert result.schedule.isValid();
+            // the best of the priority rules gives 1074
+            assert result.schedule.makespan() <= 1074;
+            assert result.stats.evaluations() > 0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.Block;
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.ResourceOrder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class SwapEvaluatorTests {
+
+    /** Resource order of a random sequence of job numbers. */
+    private static ResourceOrder randomOrder(Instance instance, Random random) {
+        JobNumbers jobs = new JobNumbers(instance);
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                jobs.jobs[jobs.nextToSet++] = j;
+        for(int i = jobs.jobs.length - 1 ; i > 0 ; i--) {
+            int k = random.nextInt(i + 1);
+            int tmp = jobs.jobs[i];
+            jobs.jobs[i] = jobs.jobs[k];
+            jobs.jobs[k] = tmp;
+        }
+        return new ResourceOrder(jobs.toSchedule());
+    }
+
+    @Test
+    public void testSwaps() throws IOException {
+        Random random = new Random(0);
+        for(String name : new String[] { "ft06", "ft10", "la21", "ta21" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            SwapEvaluator evaluator = new SwapEvaluator(instance);
+            SwapEvaluator.Scratch scratch = new SwapEvaluator.Scratch(instance);
+            int cycles = 0;
+            for(int k = 0 ; k < 10 ; k++) {
+                // random orders, then a random walk among their neighbors
+                ResourceOrder order = randomOrder(instance, random);
+                for(int step = 0 ; step < 5 ; step++) {
+                    assert evaluator.load(order);
+                    assert evaluator.makespan() == order.makespan();
+
+                    // every swap of two adjacent tasks, critical or not : some of them create a cycle
+                    for(int m = 0 ; m < instance.numMachines ; m++) {
+                        for(int i = 0 ; i < instance.numJobs - 1 ; i++) {
+                            ResourceOrder swapped = order.copy();
+                            swapped.swap(m, i, i + 1);
+                            int makespan = swapped.makespan();
+                            if(makespan == Integer.MAX_VALUE)
+                                cycles++;
+                            assert evaluator.exact(m, i) == makespan : name + " " + m + " " + i;
+                            assert evaluator.exact(m, i, scratch) == makespan;
+                        }
+                    }
+
+                    // the estimate is a lower bound for the swaps inside a critical block, which never create a cycle
+                    for(Block block : order.criticalBlocks()) {
+                        for(int i = block.firstTask ; i < block.lastTask ; i++) {
+                            int exact = evaluator.exact(block.machine, i);
+                            assert exact != Integer.MAX_VALUE;
+                            assert evaluator.estimate(block.machine, i) <= exact;
+                        }
+                    }
+
+                    int m = random.nextInt(instance.numMachines);
+                    int i = random.nextInt(instance.numJobs - 1);
+                    ResourceOrder next = order.copy();
+                    next.swap(m, i, i + 1);
+                    if(next.makespan() != Integer.MAX_VALUE)
+                        order = next;
+                }
+            }
+            assert cycles > 0 : name;
+        }
+    }
+
+    @Test
+    public void testCycle() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        ResourceOrder order = randomOrder(instance, new Random(1));
+        // an order with a cycle cannot be loaded
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs - 1 ; i++) {
+                ResourceOrder swapped = order.copy();
+                swapped.swap(m, i, i + 1);
+                assert new SwapEvaluator(instance).load(swapped) == (swapped.makespan() != Integer.MAX_VALUE);
+            }
+        }
+    }
+}
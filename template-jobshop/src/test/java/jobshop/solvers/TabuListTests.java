@@ -0,0 +1,102 @@
+package jobshop.solvers;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TabuListTests {
+
+    /** Straightforward tabu memory with the same semantics as TabuList. */
+    private static final class Reference {
+        final int tenure;
+        /** iteration at which each pair stops being taboo */
+        final Map<Long, Integer> expiries = new HashMap<>();
+        /** pairs and their expiry, in insertion order */
+        final ArrayDeque<long[]> queue = new ArrayDeque<>();
+
+        Reference(int tenure) {
+            this.tenure = tenure;
+        }
+
+        boolean isTabu(int a, int b, int iteration) {
+            Integer expiry = expiries.get(((long) a << 32) | b);
+            return expiry != null && expiry > iteration;
+        }
+
+        void add(int a, int b, int iteration) {
+            while(!queue.isEmpty() && queue.peekFirst()[1] <= iteration)
+                pop();
+            // at most tenure+1 pairs are remembered, the oldest one is dropped early
+            if(queue.size() == tenure + 1)
+                pop();
+            long key = ((long) a << 32) | b;
+            expiries.put(key, iteration + tenure);
+            queue.addLast(new long[] { key, iteration + tenure });
+        }
+
+        private void pop() {
+            long[] oldest = queue.pollFirst();
+            // a pair added again since is still taboo, a pair added twice at the same iteration is already removed
+            Integer expiry = expiries.get(oldest[0]);
+            if(expiry != null && expiry == oldest[1])
+                expiries.remove(oldest[0]);
+        }
+    }
+
+    @Test
+    public void testAgainstReference() {
+        Random random = new Random(0);
+        for(int tenure : new int[] { 1, 2, 3, 7, 10, 32 }) {
+            // few operations : pairs are often added again while taboo, and collide in the table
+            for(int numOps : new int[] { 3, 10, 100 }) {
+                TabuList list = new TabuList(tenure);
+                Reference reference = new Reference(tenure);
+                int iteration = 0;
+                // the ring of tenure+1 pairs wraps around many times
+                for(int k = 0 ; k < 20000 ; k++) {
+                    // usually one pair per iteration, sometimes several (early drops) or none (several expiries)
+                    int r = random.nextInt(10);
+                    iteration += r == 0 ? 0 : r == 1 ? 1 + random.nextInt(2 * tenure) : 1;
+                    int a = random.nextInt(numOps);
+                    int b = random.nextInt(numOps);
+                    list.add(a, b, iteration);
+                    reference.add(a, b, iteration);
+
+                    for(int q = 0 ; q < 5 ; q++) {
+                        int c = random.nextInt(numOps);
+                        int d = random.nextInt(numOps);
+                        int at = iteration + random.nextInt(tenure + 2);
+                        assert list.isTabu(c, d, at) == reference.isTabu(c, d, at)
+                                : "tenure " + tenure + ", (" + c + ", " + d + ") at " + at;
+                    }
+                    // every remembered pair, which also checks that removed pairs did not break probe sequences
+                    for(long[] pair : reference.queue) {
+                        int c = (int) (pair[0] >>> 32);
+                        int d = (int) pair[0];
+                        assert list.isTabu(c, d, iteration) == reference.isTabu(c, d, iteration);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTenure() {
+        TabuList list = new TabuList(3);
+        list.add(1, 2, 10);
+        assert list.isTabu(1, 2, 10) && list.isTabu(1, 2, 12);
+        assert !list.isTabu(1, 2, 13);
+        assert !list.isTabu(2, 1, 10);
+
+        boolean rejected = false;
+        try {
+            new TabuList(0);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assert rejected;
+    }
+}